@@ -0,0 +1,50 @@
+package com.vidasoft.magman.advertiser;
+
+import com.vidasoft.magman.model.AdImpressionCount;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "How many times an advertiser was shown with an article within a minute")
+public class AdImpressionsDTO {
+
+    @Schema(description = "The id of the article the advertiser was shown with", example = "1234")
+    private long articleId;
+
+    @Schema(description = "The start of the minute the impressions were counted in", example = "2022-09-13T10:15")
+    private String minute;
+
+    @Schema(description = "The number of impressions", example = "512")
+    private long impressions;
+
+    public AdImpressionsDTO() {
+    }
+
+    public AdImpressionsDTO(AdImpressionCount count) {
+        this.articleId = count.articleId;
+        this.minute = count.minuteStart.toString();
+        this.impressions = count.impressions;
+    }
+
+    public long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(long articleId) {
+        this.articleId = articleId;
+    }
+
+    public String getMinute() {
+        return minute;
+    }
+
+    public void setMinute(String minute) {
+        this.minute = minute;
+    }
+
+    public long getImpressions() {
+        return impressions;
+    }
+
+    public void setImpressions(long impressions) {
+        this.impressions = impressions;
+    }
+}
@@ -1,16 +1,32 @@
 package com.vidasoft.magman.advertiser;
 
+import com.vidasoft.magman.model.Manager;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.validation.constraints.Positive;
+import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Path("advertiser")
@@ -34,4 +50,107 @@ public interface AdvertiserAPI {
             )
     })
     List<AdvertiserDTO> getAllAdvertisers();
+
+    @GET
+    @Path("/{id}/logo")
+    @Produces({"image/png", "image/jpeg", "image/gif", "image/webp", "image/svg+xml"})
+    @Operation(
+            operationId = "getAdvertiserLogo",
+            summary = "Get the logo of an advertiser",
+            description = "Returns the logo image. Requested with the v parameter from the advertiser's logoUrl, it can be cached for good"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The logo image",
+                    headers = @Header(name = "ETag", description = "Tag of the logo content")
+            ),
+            @APIResponse(
+                    responseCode = "304",
+                    description = "The logo has not changed since the ETag provided in If-None-Match"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no advertiser with this id, or it has no logo"
+            )
+    })
+    Response getLogo(@Positive @PathParam("id") Long id,
+                     @Parameter(description = "Logo version, as found in the advertiser's logoUrl") @QueryParam("v") String version,
+                     @Parameter(description = "ETag of the copy the client already has") @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch);
+
+    @PUT
+    @Path("/{id}/logo")
+    @RolesAllowed({Manager.ROLE_NAME})
+    @Consumes({"image/png", "image/jpeg", "image/gif", "image/webp", "image/svg+xml"})
+    @Operation(
+            operationId = "setAdvertiserLogo",
+            summary = "Upload the logo of an advertiser",
+            description = "Replaces the logo of the advertiser with the image in the request body"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "204",
+                    description = "The logo was stored"
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "The request body is empty"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no advertiser with this id"
+            ),
+            @APIResponse(
+                    responseCode = "413",
+                    description = "The image is larger than allowed"
+            )
+    })
+    Response setLogo(@Positive @PathParam("id") Long id,
+                     @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                     @HeaderParam(HttpHeaders.CONTENT_LENGTH) Long contentLength,
+                     InputStream content) throws IOException;
+
+    @GET
+    @Path("/{id}/impressions")
+    @RolesAllowed({Manager.ROLE_NAME})
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "getAdvertiserImpressions",
+            summary = "Impressions of an advertiser",
+            description = "Lists how many times the advertiser was shown with each article, per minute. The counts lag behind by up to one flush interval"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The impressions per article and minute, oldest first",
+                    content = @Content(schema = @Schema(implementation = AdImpressionsDTO.class, type = SchemaType.ARRAY))
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "from is not before to, or they are further apart than allowed"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no advertiser with this id"
+            )
+    })
+    Response getImpressions(@Positive @PathParam("id") Long id,
+                            @Parameter(description = "Start of the period, inclusive. An hour before to by default", example = "2022-09-13T10:00") @QueryParam("from") LocalDateTime from,
+                            @Parameter(description = "End of the period, exclusive. Now by default", example = "2022-09-13T11:00") @QueryParam("to") LocalDateTime to);
 }
@@ -0,0 +1,6 @@
+package com.vidasoft.magman.advertiser;
+
+import com.vidasoft.magman.model.SponsorPackage;
+
+public record AdvertiserChangedPayload(SponsorPackage sponsorPackage) {
+}
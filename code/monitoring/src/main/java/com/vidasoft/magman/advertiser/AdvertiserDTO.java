@@ -18,8 +18,9 @@ public class AdvertiserDTO {
     @Schema(description = "The email address of the advertising company or the contact person", example = "cave@.aperturescience.com")
     private String contactEmail;
 
-    @Schema(description = "Encoded bytes used for advertiser logo")
-    private String logo;
+    @Schema(description = "Where the advertiser logo can be downloaded from. Missing when the advertiser has no logo",
+            example = "/advertiser/12/logo?v=9f86d081884c7d65")
+    private String logoUrl;
 
     @Schema(description = "The sponsor package this advertiser has paid to add them to the article", example = "GOLD")
     private SponsorPackage sponsorPackage;
@@ -67,12 +68,12 @@ public class AdvertiserDTO {
         this.contactEmail = contactEmail;
     }
 
-    public String getLogo() {
-        return logo;
+    public String getLogoUrl() {
+        return logoUrl;
     }
 
-    public void setLogo(String logo) {
-        this.logo = logo;
+    public void setLogoUrl(String logoUrl) {
+        this.logoUrl = logoUrl;
     }
 
     public SponsorPackage getSponsorPackage() {
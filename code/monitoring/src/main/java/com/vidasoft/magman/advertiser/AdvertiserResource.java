@@ -1,31 +1,119 @@
 package com.vidasoft.magman.advertiser;
 
 import com.vidasoft.magman.advertiser.decorators.AdvertiserMapper;
+import com.vidasoft.magman.http.EntityTags;
+import com.vidasoft.magman.model.AdImpressionCount;
 import com.vidasoft.magman.model.Advertiser;
-import jakarta.annotation.PostConstruct;
+import com.vidasoft.magman.model.AdvertiserLogo;
+import com.vidasoft.magman.model.Manager;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @RequestScoped
 public class AdvertiserResource implements AdvertiserAPI {
 
+    // a versioned logo URL always points to the same bytes, an unversioned one has to be checked every time
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, no-cache";
+
     @Inject
     AdvertiserService advertiserService;
 
     @Inject
     AdvertiserMapper advertiserMapper;
 
-    @PostConstruct
-    public void init() {
-        advertiserService.createTestAdvertisers();
-    }
+    @Inject
+    @ConfigProperty(name = "magman.advertiser.logo.max-size", defaultValue = "524288")
+    int logoMaxSize;
+
+    // every minute of every article is a row, so the period asked for at once is limited
+    @Inject
+    @ConfigProperty(name = "magman.advertiser.impressions.max-period", defaultValue = "24h")
+    Duration impressionsMaxPeriod;
 
     @Override
     public List<AdvertiserDTO> getAllAdvertisers() {
         return Advertiser.<Advertiser>streamAll().map(advertiserMapper::toAdvertiserDTO).collect(Collectors.toList());
     }
 
+    @Override
+    public Response getLogo(Long id, String version, String ifNoneMatch) {
+        // the advertiser comes from the second-level cache, so a revalidation never reads the image
+        Advertiser advertiser = Advertiser.findById(id);
+        if (advertiser == null || advertiser.logoHash == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        var eTag = "\"" + advertiser.logoHash + "\"";
+        var cacheControl = AdvertiserService.logoVersion(advertiser.logoHash).equals(version) ? IMMUTABLE : REVALIDATE;
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            return Response.notModified(EntityTags.of(eTag)).header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+        }
+
+        AdvertiserLogo logo = AdvertiserLogo.findById(id);
+        if (logo == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        return Response.ok(logo.content, logo.contentType)
+                .tag(EntityTags.of(eTag))
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .build();
+    }
+
+    // repeated from the API, security annotations on the interface are not enforced for this resource
+    @Override
+    @RolesAllowed({Manager.ROLE_NAME})
+    public Response setLogo(Long id, String contentType, Long contentLength, InputStream content) throws IOException {
+        // a body the client says is too large is never read, and one sent without a length is read only up to the limit
+        if (contentLength != null && contentLength > logoMaxSize) {
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).build();
+        }
+
+        byte[] logo = content == null ? new byte[0] : content.readNBytes(logoMaxSize + 1);
+        if (logo.length == 0) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } else if (logo.length > logoMaxSize) {
+            return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE).build();
+        }
+
+        return advertiserService.setLogo(id, logoType(contentType), logo)
+                ? Response.noContent().build()
+                : Response.status(Response.Status.NOT_FOUND).build();
+    }
+
+    @Override
+    @RolesAllowed({Manager.ROLE_NAME})
+    public Response getImpressions(Long id, LocalDateTime from, LocalDateTime to) {
+        var end = to == null ? LocalDateTime.now() : to;
+        var start = from == null ? end.minusHours(1) : from;
+        if (!start.isBefore(end) || Duration.between(start, end).compareTo(impressionsMaxPeriod) > 0) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } else if (Advertiser.findById(id) == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        return Response.ok(AdImpressionCount.findForAdvertiser(id, start, end).stream()
+                        .map(AdImpressionsDTO::new)
+                        .toList())
+                .build();
+    }
+
+    // the type without parameters such as charset, which mean nothing for an image
+    private static String logoType(String contentType) {
+        var mediaType = MediaType.valueOf(contentType);
+        return new MediaType(mediaType.getType(), mediaType.getSubtype()).toString();
+    }
 }
@@ -1,20 +1,66 @@
 package com.vidasoft.magman.advertiser;
 
 import com.vidasoft.magman.model.Advertiser;
-import com.vidasoft.magman.model.SponsorPackage;
+import com.vidasoft.magman.model.AdvertiserLogo;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
 @ApplicationScoped
 public class AdvertiserService {
 
+    private static final int LOGO_VERSION_LENGTH = 16;
+
+    @Inject
+    Event<AdvertiserChangedPayload> advertiserChangedEvent;
+
+    // adds the advertisers only to an empty table, so it can run on every start
+    @Transactional
+    public int createAdvertisers(List<Advertiser> advertisers) {
+        if (Advertiser.count() > 0) {
+            return 0;
+        }
+
+        advertisers.forEach(advertiser -> advertiser.persist());
+        advertiserChangedEvent.fire(new AdvertiserChangedPayload(null));
+        return advertisers.size();
+    }
+
+    // stores the logo and returns false when there is no such advertiser
     @Transactional
-    public void createTestAdvertisers() {
-        if (Advertiser.count() == 0) {
-            new Advertiser("Google", "https://google.com", "advertiser@google.com", SponsorPackage.GOLD).persist();
-            new Advertiser("Apple", "https://apple.com", "advertiser@apple.com", SponsorPackage.SILVER).persist();
-            new Advertiser("Amazon", "https://amazon.com", "advertiser@amazon.com", SponsorPackage.BRONZE).persist();
+    public boolean setLogo(long advertiserId, String contentType, byte[] content) {
+        Advertiser advertiser = Advertiser.findById(advertiserId);
+        if (advertiser == null) {
+            return false;
+        }
+
+        AdvertiserLogo logo = AdvertiserLogo.findById(advertiserId);
+        if (logo == null) {
+            new AdvertiserLogo(advertiserId, contentType, content).persist();
+        } else {
+            logo.contentType = contentType;
+            logo.content = content;
+        }
+        advertiser.logoHash = hash(content);
+        return true;
+    }
+
+    public static String logoVersion(String logoHash) {
+        return logoHash.substring(0, LOGO_VERSION_LENGTH);
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
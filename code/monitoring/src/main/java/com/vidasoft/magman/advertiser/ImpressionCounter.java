@@ -0,0 +1,122 @@
+package com.vidasoft.magman.advertiser;
+
+import com.vidasoft.magman.model.AdImpressionCount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Counts the sponsors shown with article views in memory, one shard per clock minute, and adds the counts to
+// the per minute rollups in the database on a schedule. Reading an article never waits for a write
+@ApplicationScoped
+public class ImpressionCounter {
+
+    private static final Logger LOGGER = Logger.getLogger(ImpressionCounter.class.getName());
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    @Inject
+    MeterRegistry registry;
+
+    // impressions since the last flush, by epoch minute. The adders of a minute are reset, not removed, and its shard
+    // is dropped only once the minute has been over for a whole minute
+    private final Map<Long, Map<Impression, LongAdder>> pending = new ConcurrentHashMap<>();
+
+    private Counter flushedImpressions;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        flushedImpressions = registry.counter("ad_impressions_flushed");
+        flushTimer = registry.timer("ad_impressions_flush");
+        registry.gaugeMapSize("ad_impressions_minutes", List.of(), pending);
+    }
+
+    public void record(long advertiserId, long articleId) {
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        var shard = pending.get(minute);
+        if (shard == null) {
+            shard = pending.computeIfAbsent(minute, m -> new ConcurrentHashMap<>());
+        }
+        var impression = new Impression(advertiserId, articleId);
+        var adder = shard.get(impression);
+        if (adder == null) {
+            adder = shard.computeIfAbsent(impression, i -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    @Scheduled(every = "${magman.advertiser.impressions.flush-every:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flush() {
+        flushTimer.record(() -> {
+            long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+            Map<Long, Map<Impression, Long>> impressions = new HashMap<>();
+            pending.forEach((minute, shard) -> {
+                if (minute < currentMinute - 1) {
+                    pending.remove(minute);
+                }
+                shard.forEach((impression, adder) -> {
+                    long count = adder.sumThenReset();
+                    if (count > 0) {
+                        impressions.computeIfAbsent(minute, m -> new HashMap<>()).put(impression, count);
+                    }
+                });
+            });
+
+            if (impressions.isEmpty()) {
+                return;
+            }
+
+            try {
+                write(impressions);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not flush the impressions of {0} minutes, will retry: {1}", new Object[]{impressions.size(), e.getMessage()});
+                impressions.forEach((minute, counts) -> counts.forEach((impression, count) ->
+                        pending.computeIfAbsent(minute, m -> new ConcurrentHashMap<>())
+                                .computeIfAbsent(impression, i -> new LongAdder())
+                                .add(count)));
+                return;
+            }
+
+            flushedImpressions.increment(impressions.values().stream()
+                    .flatMap(counts -> counts.values().stream())
+                    .mapToLong(Long::longValue)
+                    .sum());
+        });
+    }
+
+    @Transactional
+    void write(Map<Long, Map<Impression, Long>> impressions) {
+        Map<AdImpressionCount.Key, Long> rows = new HashMap<>();
+        impressions.forEach((minute, counts) -> {
+            var minuteStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(minute * MINUTE_MILLIS), ZoneId.systemDefault());
+            counts.forEach((impression, count) ->
+                    rows.merge(new AdImpressionCount.Key(impression.advertiserId(), impression.articleId(), minuteStart), count, Long::sum));
+        });
+        AdImpressionCount.addImpressions(rows);
+    }
+
+    void flushOnShutdown(@Observes ShutdownEvent shutdownEvent) {
+        flush();
+    }
+
+    private record Impression(long advertiserId, long articleId) {
+    }
+}
@@ -0,0 +1,6 @@
+package com.vidasoft.magman.advertiser;
+
+import com.vidasoft.magman.model.SponsorPackage;
+
+public record Sponsor(long id, String name, SponsorPackage sponsorPackage) {
+}
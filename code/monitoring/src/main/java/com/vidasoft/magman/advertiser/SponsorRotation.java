@@ -0,0 +1,129 @@
+package com.vidasoft.magman.advertiser;
+
+import com.vidasoft.magman.model.Advertiser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Draws the sponsors of every article view, weighted by the price of their sponsor package, and counts them as
+// shown. Articles are cached and tagged without them, so a change of sponsors never invalidates a cached article
+@ApplicationScoped
+public class SponsorRotation {
+
+    private static final Logger LOGGER = Logger.getLogger(SponsorRotation.class.getName());
+
+    // the generation and its sampler are replaced together, so a sampler loaded before a change is not kept after it.
+    // The sampler is null until the first view asks for sponsors after a change
+    private final AtomicReference<Rotation> rotation = new AtomicReference<>(new Rotation(0, null));
+
+    @Inject
+    ImpressionCounter impressionCounter;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.sponsors.per-article", defaultValue = "3")
+    int sponsorsPerArticle;
+
+    // how far over its share of the shown sponsors an advertiser may get before it is held back
+    @Inject
+    @ConfigProperty(name = "magman.sponsors.pacing-tolerance", defaultValue = "0.1")
+    double pacingTolerance;
+
+    private Counter rebuilds;
+    private Counter pacings;
+
+    @PostConstruct
+    void init() {
+        rebuilds = registry.counter("sponsor_rotation_rebuilds");
+        pacings = registry.counter("sponsor_rotation_pacings");
+        registry.gauge("sponsor_rotation_advertisers", this, sponsorRotation -> {
+            var current = sponsorRotation.rotation.get().sampler();
+            return current == null ? 0 : current.size();
+        });
+    }
+
+    // the text appended to one view of the article, whose sponsors are counted as shown with it
+    public String sponsorshipSuffix(long articleId) {
+        var current = rotation.get();
+        if (current.sampler() == null) {
+            current = rebuild();
+        }
+
+        return draw(current.sampler(), articleId);
+    }
+
+    // like sponsorshipSuffix, but null instead of loading the advertisers after a change, which the event loop must
+    // not wait for
+    public String sponsorshipSuffixIfLoaded(long articleId) {
+        var sampler = rotation.get().sampler();
+        return sampler == null ? null : draw(sampler, articleId);
+    }
+
+    public void invalidate() {
+        rotation.updateAndGet(current -> new Rotation(current.generation() + 1, null));
+    }
+
+    private String draw(SponsorSampler sampler, long articleId) {
+        int[] picked = sampler.pick(sponsorsPerArticle);
+        sampler.deliver(picked);
+        for (int sponsor : picked) {
+            impressionCounter.record(sampler.advertiserId(sponsor), articleId);
+        }
+        return sampler.suffix(picked);
+    }
+
+    // holds back the advertisers that got ahead of their share, and lets the ones that caught up back in
+    @Scheduled(every = "${magman.sponsors.pacing-every:60s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void pace() {
+        var current = rotation.get();
+        if (current.sampler() == null) {
+            return;
+        }
+
+        var paced = current.sampler().paced(sponsorsPerArticle);
+        if (paced != current.sampler() && rotation.compareAndSet(current, new Rotation(current.generation() + 1, paced))) {
+            pacings.increment();
+        }
+    }
+
+    private synchronized Rotation rebuild() {
+        var current = rotation.get();
+        if (current.sampler() != null) {
+            return current;
+        }
+
+        // loaded again after every advertiser change, the query cache answers unless the advertisers table changed
+        var sponsors = Advertiser.findAll(Sort.by("id")).project(Sponsor.class)
+                .withHint(HibernateHints.HINT_CACHEABLE, true)
+                .withHint(HibernateHints.HINT_CACHE_REGION, Advertiser.SPONSORS_CACHE_REGION)
+                .list();
+        var rebuilt = new Rotation(current.generation(),
+                sponsors.isEmpty() ? SponsorSampler.EMPTY : new SponsorSampler(sponsors, pacingTolerance));
+        // an advertiser changed while loading, so this one is used once but not kept
+        rotation.compareAndSet(current, rebuilt);
+        rebuilds.increment();
+        return rebuilt;
+    }
+
+    void onAdvertiserChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AdvertiserChangedPayload payload) {
+        invalidate();
+        LOGGER.log(Level.FINE, "Rebuilding the sponsor rotation after a change to {0}", payload.sponsorPackage());
+    }
+
+    private record Rotation(long generation, SponsorSampler sampler) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.vidasoft.magman.advertiser;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Picks sponsors at random, weighted by the price of their sponsor package, in constant time per pick with Vose's
+// alias method. Immutable apart from the delivery counters, so it is shared between threads without locking. It is
+// replaced as a whole when the advertisers change, or by paced() when the deliveries drift from the shares
+final class SponsorSampler {
+
+    static final SponsorSampler EMPTY = new SponsorSampler(List.of(), 0);
+
+    private static final String SUFFIX_PREFIX = "\nThis article has been sponsored by: ";
+
+    private final long[] ids;
+    private final String[] names;
+    private final double[] share;
+    private final double pacingTolerance;
+
+    // the sponsors left out of the picks because they have been shown more than their share
+    private final boolean[] heldBack;
+    private final int eligible;
+    private final double[] probability;
+    private final int[] alias;
+
+    // shared with the samplers paced() returns, so pacing looks at all deliveries since the advertisers changed
+    private final LongAdder[] delivered;
+    private final LongAdder totalDelivered;
+
+    SponsorSampler(List<Sponsor> sponsors, double pacingTolerance) {
+        this(sponsors.stream().mapToLong(Sponsor::id).toArray(),
+                sponsors.stream().map(Sponsor::name).toArray(String[]::new),
+                shares(sponsors),
+                pacingTolerance,
+                new boolean[sponsors.size()],
+                Stream.generate(LongAdder::new).limit(sponsors.size()).toArray(LongAdder[]::new),
+                new LongAdder());
+    }
+
+    private SponsorSampler(long[] ids, String[] names, double[] share, double pacingTolerance, boolean[] heldBack,
+                           LongAdder[] delivered, LongAdder totalDelivered) {
+        int size = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.share = share;
+        this.pacingTolerance = pacingTolerance;
+        this.heldBack = heldBack;
+        this.delivered = delivered;
+        this.totalDelivered = totalDelivered;
+        probability = new double[size];
+        alias = new int[size];
+
+        double eligibleShare = 0;
+        int eligibleCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (!heldBack[i]) {
+                eligibleShare += share[i];
+                eligibleCount++;
+            }
+        }
+        eligible = eligibleCount;
+
+        double[] scaled = new double[size];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            scaled[i] = heldBack[i] ? 0 : share[i] / eligibleShare * size;
+            (scaled[i] < 1 ? small : large).add(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.poll();
+            int more = large.poll();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).add(more);
+        }
+        // whatever is left is 1 up to rounding errors
+        large.forEach(i -> probability[i] = 1);
+        small.forEach(i -> probability[i] = 1);
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    // up to count different sponsors, drawn for every view of an article
+    int[] pick(int count) {
+        int wanted = Math.min(count, eligible);
+        int[] picked = new int[wanted];
+        int found = 0;
+        var random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < wanted * 8 && found < wanted; attempt++) {
+            int column = random.nextInt(names.length);
+            int candidate = random.nextDouble() < probability[column] ? column : alias[column];
+            if (!contains(picked, found, candidate)) {
+                picked[found++] = candidate;
+            }
+        }
+        return found == wanted ? picked : Arrays.copyOf(picked, found);
+    }
+
+    // this sampler, or one that holds back the sponsors shown more than their share by the tolerance. A held back
+    // sponsor is picked again once it is down to its share. Nobody is held back when that would leave fewer sponsors
+    // than an article has room for, they would only leave the room empty
+    SponsorSampler paced(int perArticle) {
+        long total = totalDelivered.sum();
+        // too few deliveries to tell, every sponsor is behind on the first ones
+        if (total < names.length * 10L) {
+            return this;
+        }
+
+        boolean[] ahead = new boolean[names.length];
+        boolean changed = false;
+        int aheadCount = 0;
+        for (int i = 0; i < names.length; i++) {
+            double allowed = share[i] * total * (heldBack[i] ? 1 : 1 + pacingTolerance);
+            ahead[i] = delivered[i].sum() > allowed;
+            changed |= ahead[i] != heldBack[i];
+            aheadCount += ahead[i] ? 1 : 0;
+        }
+        if (!changed || names.length - aheadCount < perArticle) {
+            return this;
+        }
+        return new SponsorSampler(ids, names, share, pacingTolerance, ahead, delivered, totalDelivered);
+    }
+
+    // the text appended to the article for the picked sponsors
+    String suffix(int[] picked) {
+        if (picked.length == 0) {
+            return "";
+        }
+
+        var suffix = new StringBuilder(SUFFIX_PREFIX);
+        for (int i = 0; i < picked.length; i++) {
+            suffix.append(i == 0 ? "" : ", ").append(names[picked[i]]);
+        }
+        return suffix.toString();
+    }
+
+    // counts one showing of the picked sponsors, which is what pacing compares to their share
+    void deliver(int[] picked) {
+        for (int sponsor : picked) {
+            delivered[sponsor].increment();
+        }
+        totalDelivered.add(picked.length);
+    }
+
+    long advertiserId(int sponsor) {
+        return ids[sponsor];
+    }
+
+    private static double[] shares(List<Sponsor> sponsors) {
+        double totalWeight = sponsors.stream().mapToDouble(sponsor -> sponsor.sponsorPackage().getPrice()).sum();
+        return sponsors.stream().mapToDouble(sponsor -> sponsor.sponsorPackage().getPrice() / totalWeight).toArray();
+    }
+
+    private static boolean contains(int[] picked, int found, int candidate) {
+        for (int i = 0; i < found; i++) {
+            if (picked[i] == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,12 +1,12 @@
 package com.vidasoft.magman.advertiser.decorators;
 
 import com.vidasoft.magman.advertiser.AdvertiserDTO;
+import com.vidasoft.magman.advertiser.AdvertiserService;
 import com.vidasoft.magman.model.Advertiser;
 
 import jakarta.decorator.Decorator;
 import jakarta.decorator.Delegate;
 import jakarta.inject.Inject;
-import java.util.Base64;
 
 @Decorator
 public abstract class AdvertiserMapperDecorator implements AdvertiserMapper {
@@ -18,13 +18,14 @@ public abstract class AdvertiserMapperDecorator implements AdvertiserMapper {
     @Override
     public AdvertiserDTO toAdvertiserDTO(Advertiser advertiser) {
         var dto = advertiserMapper.toAdvertiserDTO(advertiser);
-        dto.setLogo(getBase64Image(advertiser.logo));
+        dto.setLogoUrl(getLogoUrl(advertiser));
         return dto;
     }
 
-    private String getBase64Image(byte[] image) {
-        if (image != null) {
-            return Base64.getEncoder().encodeToString(image);
+    // the version part changes with the logo, so the URL can be cached for good
+    private String getLogoUrl(Advertiser advertiser) {
+        if (advertiser.logoHash != null) {
+            return "/advertiser/%d/logo?v=%s".formatted(advertiser.id, AdvertiserService.logoVersion(advertiser.logoHash));
         } return null;
     }
 }
@@ -6,12 +6,15 @@ import io.quarkus.security.Authenticated;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
@@ -19,10 +22,12 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.headers.Header;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -33,10 +38,17 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.eclipse.microprofile.rest.client.annotation.RegisterClientHeaders;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @Authenticated
 @Path("/article")
 @Tag(name = "Article Resource", description = "Contains all the endpoints, required to create, update and delete articles.")
 public interface ArticleAPI {
+
+    String APPLICATION_NDJSON = "application/x-ndjson";
+
     @POST
     @RolesAllowed({Author.ROLE_NAME})
     @Consumes(MediaType.APPLICATION_JSON)
@@ -95,13 +107,76 @@ public interface ArticleAPI {
     })
     Response createArticle(@Valid @NotNull ArticleDTO articleDTO);
 
+    @POST
+    @Path("/bulk")
+    @RolesAllowed({Author.ROLE_NAME})
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "importArticles",
+            summary = "Import articles",
+            description = "Creates many articles at once. Invalid articles are reported back and do not stop the rest of the import"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The number of stored articles and the ones that failed",
+                    content = @Content(schema = @Schema(implementation = ArticleImportResultDTO.class))
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "The User type is not Author"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            )
+    })
+    Response importArticles(@NotNull List<ArticleDTO> articleDTOs);
+
+    @POST
+    @Path("/bulk")
+    @RolesAllowed({Author.ROLE_NAME})
+    @Consumes(ArticleAPI.APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "importArticlesStream",
+            summary = "Import articles from a stream",
+            description = "Creates articles from newline-delimited JSON, one article per line, without reading the whole body in memory"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The number of stored articles and the ones that failed",
+                    content = @Content(schema = @Schema(implementation = ArticleImportResultDTO.class))
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "The User type is not Author"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            )
+    })
+    Response importArticles(InputStream articles) throws IOException;
+
     @GET
     @Path("/{id}")
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(
             operationId = "getArticle",
             summary = "Get article",
-            description = "Gets article by its id"
+            description = "Gets article by its id. Supports conditional requests through the If-None-Match header. " +
+                    "With include=comments the first page of comments is returned in the same response, without an ETag"
     )
     @APIResponses({
             @APIResponse(
@@ -110,8 +185,18 @@ public interface ArticleAPI {
                     description = "Successfully created the article",
                     content = @Content(
                             schema = @Schema(implementation = ArticleDTO.class)
+                    ),
+                    headers = @Header(
+                            name = "ETag",
+                            description = "Strong entity tag of the article, derived from its version",
+                            schema = @Schema(implementation = String.class, example = "\"3-0-1\"")
                     )
             ),
+            @APIResponse(
+                    responseCode = "304",
+                    name = "Not Modified",
+                    description = "The article has not changed since the ETag provided in If-None-Match"
+            ),
             @APIResponse(
                     responseCode = "401",
                     name = "Unauthorized",
@@ -124,7 +209,10 @@ public interface ArticleAPI {
                     description = "The article you are looking for cannot be found."
             )
     })
-    Response getArticle(@Parameter(required = true) @Positive @PathParam("id") Long articleId);
+    Response getArticle(@Parameter(required = true) @Positive @PathParam("id") Long articleId,
+                        @Parameter(description = "ETag of the copy the client already has") @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                        @Parameter(description = "Related data to return together with the article", example = "comments") @QueryParam("include") ArticleInclude include,
+                        @Parameter(description = "The maximum number of comments returned with include=comments") @QueryParam("comments") @DefaultValue("20") @Positive @Max(100) int commentLimit);
 
     @PUT
     @Path("/{id}")
@@ -134,7 +222,7 @@ public interface ArticleAPI {
     @Operation(
             operationId = "editArticle",
             summary = "Edit article",
-            description = "Updates an article by its id"
+            description = "Updates an article by its id. With If-Match the article is only updated if it has not changed since that ETag"
     )
     @RequestBody(
             name = "articleDTO",
@@ -196,10 +284,21 @@ public interface ArticleAPI {
                     description = """
                             The user you are accessing this endpoint with, has no permission to access it.
                             """
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    name = "Not Found",
+                    description = "The article you are trying to edit cannot be found."
+            ),
+            @APIResponse(
+                    responseCode = "412",
+                    name = "Precondition Failed",
+                    description = "The article was changed since the ETag in If-Match. Get the article again and reapply the edit"
             )
     })
     Response editArticle(@Parameter(description = "Must natch the article id in the body.", example = "3")
-                         @Positive @PathParam("id") Long articleId, @Valid @NotNull ArticleDTO articleDTO);
+                         @Positive @PathParam("id") Long articleId, @Valid @NotNull ArticleDTO articleDTO,
+                         @Parameter(description = "ETag of the article version the edit is based on") @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch);
 
     @DELETE
     @Path("/{id}")
@@ -207,7 +306,7 @@ public interface ArticleAPI {
     @Operation(
             operationId = "deleteArticle",
             summary = "Delete article",
-            description = "Permanently removes an article and its related comments by its id"
+            description = "Removes an article by its id. The article disappears right away, its comments are purged in the background"
     )
     @APIResponses({
             @APIResponse(
@@ -234,13 +333,22 @@ public interface ArticleAPI {
     @Operation(
             operationId = "getArticles",
             summary = "Get articles",
-            description = "Returns a list of articles. Can be filtered by author's id"
+            description = "Returns a list of articles, newest first. Can be filtered by author's id and listed as summaries. " +
+                    "Use the page parameter for the first page and follow the `next` link for the following ones."
     )
     @APIResponses({
             @APIResponse(
                     responseCode = "200",
                     name = "List of articles",
                     description = "The articles that were found",
+                    headers = @Header(
+                            name = "Link",
+                            description = "Link to the next page of articles with rel=\"next\". Missing when this is the last page",
+                            schema = @Schema(
+                                    implementation = String.class,
+                                    example = "<http://localhost:8080/article?size=10&after=MjAyMi0wMS0xMlQwMDowMHwz>; rel=\"next\""
+                            )
+                    ),
                     content = @Content(
                             schema = @Schema(name = "ArticleDTO",
                                     implementation = ArticleDTO[].class,
@@ -283,7 +391,7 @@ public interface ArticleAPI {
             @APIResponse(
                     responseCode = "400",
                     name = "Bad Request",
-                    description = "You provided malformed query parameters. Check the requirements and try again."
+                    description = "You provided malformed query parameters or an invalid `after` token. Check the requirements and try again."
             ),
             @APIResponse(
                     responseCode = "401",
@@ -309,7 +417,99 @@ public interface ArticleAPI {
     )
     Response getArticles(@Parameter(required = true, description = "Search result page, starts from 1") @QueryParam("page") @DefaultValue("1") @Positive int page,
                          @Parameter(required = true, description = "Size of the search result page. Cannot be 0") @QueryParam("size") @DefaultValue("10") @Positive int size,
-                         @QueryParam("author") @Positive Long authorId);
+                         @QueryParam("author") @Positive Long authorId,
+                         @Parameter(description = "Opaque token from the `next` link. When provided, the page parameter is ignored")
+                         @QueryParam("after") String after,
+                         @Parameter(description = "`summary` returns only the id, title, publish date, author and an excerpt of each article. `full` returns the whole article",
+                                 schema = @Schema(enumeration = {"summary", "full"}))
+                         @QueryParam("view") @DefaultValue("full") ArticleView view);
+
+    @GET
+    @Path("/top")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "getTopArticles",
+            summary = "Most read articles",
+            description = "Lists the most read articles within the last clock hour, day or week. The counts lag behind by up to one flush interval"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The most read articles, most read first",
+                    content = @Content(schema = @Schema(implementation = ArticleViewsDTO.class, type = SchemaType.ARRAY))
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            )
+    })
+    List<ArticleViewsDTO> getTopArticles(@Parameter(description = "One of hour, day or week") @QueryParam("window") @DefaultValue("day") ViewWindow window,
+                                         @Parameter(description = "How many articles to list") @QueryParam("size") @DefaultValue("10") @Positive @Max(100) int size);
+
+    @GET
+    @Path("/search")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "searchArticles",
+            summary = "Search articles",
+            description = "Full-text search over the titles and contents of the articles, best matches first. " +
+                    "Follow the `next` link for the following pages."
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The summaries of the articles matching the query",
+                    content = @Content(
+                            schema = @Schema(implementation = ArticleSummaryDTO[].class)
+                    ),
+                    headers = @Header(
+                            name = "Link",
+                            description = "Link to the next page of results with rel=\"next\". Missing when this is the last page",
+                            schema = @Schema(implementation = String.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "The query is missing or the `after` token is invalid"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            )
+    })
+    Response searchArticles(@Parameter(required = true, description = "Words to search for", example = "quarkus")
+                            @QueryParam("q") @NotBlank String query,
+                            @Parameter(description = "Size of the search result page. Cannot be 0") @QueryParam("size") @DefaultValue("10") @Positive int size,
+                            @Parameter(description = "Opaque token from the `next` link") @QueryParam("after") String after);
+
+    @GET
+    @Path("/export")
+    @RolesAllowed({Manager.ROLE_NAME})
+    @Produces(ArticleAPI.APPLICATION_NDJSON)
+    @Operation(
+            operationId = "exportArticles",
+            summary = "Export articles",
+            description = "Streams all the articles with their comments as newline-delimited JSON, one article per line"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The stream of articles",
+                    content = @Content(
+                            mediaType = ArticleAPI.APPLICATION_NDJSON,
+                            schema = @Schema(implementation = ArticleDTO.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            )
+    })
+    Response exportArticles(@Parameter(description = "Compress the stream with gzip") @QueryParam("gzip") @DefaultValue("false") boolean gzip);
 
     @PATCH
     @RolesAllowed({Manager.ROLE_NAME})
@@ -338,4 +538,39 @@ public interface ArticleAPI {
             )
     })
     Response addAdvertiserToArticle(@Positive @PathParam("id") Long id, @Positive @PathParam("advertiserId") Long advertiserId);
+
+    @POST
+    @Path("/promotion")
+    @RolesAllowed({Manager.ROLE_NAME})
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "promoteArticles",
+            summary = "Promote many articles",
+            description = "Adds an advertiser to all the articles matching the given ids, author and publish date range"
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "The number of articles the advertiser was added to",
+                    content = @Content(schema = @Schema(implementation = ArticlePromotionResultDTO.class))
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "No criteria were given, articleIds is empty or the dates are not in the yyyy-MM-dd format"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Authorization header missing or expired"
+            ),
+            @APIResponse(
+                    responseCode = "403",
+                    description = "The operation cannot be done with this user role"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no advertiser with the given id"
+            )
+    })
+    Response promoteArticles(@Valid @NotNull ArticlePromotionDTO promotion);
 }
@@ -0,0 +1,50 @@
+package com.vidasoft.magman.article;
+
+import jakarta.json.bind.Jsonb;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+// An article serialized once without its sponsors, split where they go at the end of its content, so every view
+// is sent with sponsors of its own for the cost of copying the bytes
+public record ArticleBody(byte[] head, byte[] tail) {
+
+    // appended to the content to find that place in the bytes, random so that no article can contain it
+    private static final byte[] SPONSORS_MARK = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    public static ArticleBody of(Jsonb jsonb, ArticleDTO article) {
+        String content = article.getContent();
+        article.setContent(content + new String(SPONSORS_MARK, StandardCharsets.UTF_8));
+        byte[] body = jsonb.toJson(article).getBytes(StandardCharsets.UTF_8);
+        article.setContent(content);
+
+        int mark = indexOfMark(body);
+        return new ArticleBody(Arrays.copyOfRange(body, 0, mark),
+                Arrays.copyOfRange(body, mark + SPONSORS_MARK.length, body.length));
+    }
+
+    public byte[] withSponsors(Jsonb jsonb, String sponsorshipSuffix) {
+        String quoted = jsonb.toJson(sponsorshipSuffix);
+        byte[] sponsors = quoted.substring(1, quoted.length() - 1).getBytes(StandardCharsets.UTF_8);
+
+        byte[] body = new byte[head.length + sponsors.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(sponsors, 0, body, head.length, sponsors.length);
+        System.arraycopy(tail, 0, body, head.length + sponsors.length, tail.length);
+        return body;
+    }
+
+    int length() {
+        return head.length + tail.length;
+    }
+
+    private static int indexOfMark(byte[] body) {
+        for (int i = 0; i <= body.length - SPONSORS_MARK.length; i++) {
+            if (Arrays.equals(body, i, i + SPONSORS_MARK.length, SPONSORS_MARK, 0, SPONSORS_MARK.length)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The serialized article lost its sponsors mark");
+    }
+}
@@ -0,0 +1,103 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.advertiser.SponsorRotation;
+import com.vidasoft.magman.http.EntityTags;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.security.identity.CurrentIdentityAssociation;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+import org.jboss.resteasy.reactive.server.SimpleResourceInfo;
+
+import java.util.Locale;
+
+public class ArticleCacheFilter {
+
+    @Inject
+    ArticleResponseCache articleResponseCache;
+
+    @Inject
+    CurrentIdentityAssociation identityAssociation;
+
+    @Inject
+    ArticleViewCounter articleViewCounter;
+
+    @Inject
+    SponsorRotation sponsorRotation;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.event-loop-reads", defaultValue = "true")
+    boolean eventLoopReads;
+
+    private Counter eventLoopHits;
+
+    @PostConstruct
+    void init() {
+        eventLoopHits = registry.counter("articles_served_on_event_loop");
+    }
+
+    // answers cached article reads on the IO thread, so they never wait for (or hold) a worker thread
+    @ServerRequestFilter(nonBlocking = true)
+    public Uni<Response> serveCachedArticle(ContainerRequestContext requestContext, SimpleResourceInfo resourceInfo) {
+        if (!eventLoopReads || resourceInfo.getResourceClass() != ArticleResource.class
+                || !resourceInfo.getMethodName().equals("getArticle")
+                || requestContext.getUriInfo().getQueryParameters().containsKey("include")) {
+            return Uni.createFrom().nullItem();
+        }
+
+        return identityAssociation.getDeferredIdentity()
+                .map(identity -> identity.isAnonymous() ? null : cachedResponse(requestContext));
+    }
+
+    private Response cachedResponse(ContainerRequestContext requestContext) {
+        long articleId;
+        try {
+            articleId = Long.parseLong(requestContext.getUriInfo().getPathParameters().getFirst("id"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String eTag = articleResponseCache.currentETag(articleId);
+        if (eTag == null) {
+            return null;
+        }
+
+        if (EntityTags.matches(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            eventLoopHits.increment();
+            articleViewCounter.record(articleId);
+            return Response.notModified(EntityTags.of(eTag)).build();
+        }
+
+        Locale locale = requestContext.getAcceptableLanguages().stream().findFirst().orElse(Locale.ROOT);
+        ArticleBody body = articleResponseCache.get(eTag, locale);
+        if (body == null) {
+            return null;
+        }
+
+        // right after an advertiser changed the sponsors are loaded again, which the resource waits for
+        String sponsorshipSuffix = sponsorRotation.sponsorshipSuffixIfLoaded(articleId);
+        if (sponsorshipSuffix == null) {
+            return null;
+        }
+
+        eventLoopHits.increment();
+        articleViewCounter.record(articleId);
+        return Response.ok(body.withSponsors(jsonb, sponsorshipSuffix), MediaType.APPLICATION_JSON_TYPE)
+                .tag(EntityTags.of(eTag))
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.Article;
+
+public record ArticleChangedPayload(long articleId, String title, String content, boolean deleted) {
+
+    public static ArticleChangedPayload updated(Article article) {
+        return new ArticleChangedPayload(article.id, article.title, article.content, false);
+    }
+
+    public static ArticleChangedPayload deleted(long articleId) {
+        return new ArticleChangedPayload(articleId, null, null, true);
+    }
+}
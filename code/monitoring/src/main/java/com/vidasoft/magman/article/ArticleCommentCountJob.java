@@ -0,0 +1,82 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.Article;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The comment counts are kept by increments, which a failed or manual write can leave off.
+// This job recounts them, one chunk of articles at a time
+@ApplicationScoped
+public class ArticleCommentCountJob {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticleCommentCountJob.class.getName());
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.comment-count.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    private Counter repairedCounts;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void init() {
+        repairedCounts = registry.counter("articles_comment_count_repaired");
+        chunkTimer = registry.timer("articles_comment_count_chunk");
+    }
+
+    @Scheduled(every = "${magman.article.comment-count.reconcile-every:1h}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reconcile() {
+        reconcileAll();
+    }
+
+    // returns how many articles had a wrong count
+    public int reconcileAll() {
+        int repairedTotal = 0;
+        long afterId = 0;
+        List<Long> articleIds;
+        do {
+            articleIds = findIdsAfter(afterId);
+            if (articleIds.isEmpty()) {
+                return repairedTotal;
+            }
+
+            long firstId = afterId;
+            long lastId = articleIds.get(articleIds.size() - 1);
+            try {
+                int repaired = chunkTimer.record(() -> repairChunk(firstId, lastId));
+                repairedCounts.increment(repaired);
+                repairedTotal += repaired;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not recount the comments of articles {0} to {1}, will retry: {2}",
+                        new Object[]{firstId + 1, lastId, e.getMessage()});
+            }
+            afterId = lastId;
+        } while (articleIds.size() == chunkSize);
+        return repairedTotal;
+    }
+
+    @Transactional
+    List<Long> findIdsAfter(long afterId) {
+        return Article.findIdsAfter(afterId, chunkSize);
+    }
+
+    // every chunk runs in its own short transaction, so the locks are released before the next one
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int repairChunk(long afterId, long lastId) {
+        return Article.reconcileCommentCounts(afterId, lastId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.Article;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+public record ArticleCursor(LocalDateTime publishDate, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static ArticleCursor of(Article article) {
+        return new ArticleCursor(article.publishDate, article.id);
+    }
+
+    public static ArticleCursor of(ArticleSummaryDTO summary) {
+        return new ArticleCursor(Optional.ofNullable(summary.getPublishDate()).map(LocalDateTime::parse).orElse(null),
+                summary.getId());
+    }
+
+    public static Optional<ArticleCursor> decode(String token) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return Optional.of(new ArticleCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.parseLong(decoded.substring(separatorIndex + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((publishDate + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,16 +1,16 @@
 package com.vidasoft.magman.article;
 
-import com.vidasoft.magman.advertiser.producers.Gold;
-import com.vidasoft.magman.model.Advertiser;
+import com.vidasoft.magman.advertiser.SponsorRotation;
 import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.ArticleWithComments;
 
 import jakarta.decorator.Decorator;
 import jakarta.decorator.Delegate;
 import jakarta.inject.Inject;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+// A single article is cached without its sponsors and is not decorated here, the resource adds them to every view
+// of it (see ArticleBody)
 @Decorator
 public abstract class ArticleDecorator implements ArticleService {
 
@@ -19,20 +19,21 @@ public abstract class ArticleDecorator implements ArticleService {
     ArticleService articleService;
 
     @Inject
-    @Gold(limit = 10)
-    List<Advertiser> goldAdvertisers;
+    SponsorRotation sponsorRotation;
 
     @Override
-    public Optional<Article> getArticle(long articleId) {
-        return articleService.getArticle(articleId)
-                .map(this::decorateArticle);
+    public Optional<ArticleWithComments> getArticleWithComments(long articleId, int commentLimit) {
+        return articleService.getArticleWithComments(articleId, commentLimit)
+                .map(found -> new ArticleWithComments(decorateArticle(found.article()), found.comments()));
     }
 
     private Article decorateArticle(Article article) {
-        var message = String.format("\nThis article has been sponsored by: %s",
-                goldAdvertisers.stream().map(a -> a.name).collect(Collectors.joining(", ")));
-        var decoratedArticle = new Article(article.title, article.content + message, article.author);
+        var decoratedArticle = new Article(article.title, article.content + sponsorRotation.sponsorshipSuffix(article.id),
+                article.author);
         decoratedArticle.id = article.id;
+        decoratedArticle.version = article.version;
+        decoratedArticle.publishDate = article.publishDate;
+        decoratedArticle.lastModified = article.lastModified;
         return decoratedArticle;
     }
 }
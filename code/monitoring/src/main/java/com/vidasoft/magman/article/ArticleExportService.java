@@ -0,0 +1,169 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.comment.CommentDTO;
+import com.vidasoft.magman.model.Article;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@ApplicationScoped
+public class ArticleExportService {
+
+    private static final byte[] COMMENTS_START = ",\"comments\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] COMMENT_SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARTICLE_END = "]}\n".getBytes(StandardCharsets.UTF_8);
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    MeterRegistry registry;
+
+    // how many comments are read in one transaction
+    @Inject
+    @ConfigProperty(name = "magman.export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    // how many articles are read in one transaction
+    @Inject
+    @ConfigProperty(name = "magman.export.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    // every chunk of articles and every page of their comments is read in its own short transaction, so an export
+    // of any size stays within the transaction timeout and holds no connection while the client reads.
+    // The heap holds one chunk of articles and one page of comments, however many comments an article has
+    public void exportArticles(OutputStream out) throws IOException {
+        var exportedArticles = registry.counter("articles_exported");
+        long afterId = 0;
+        List<ArticleDTO> articles;
+        do {
+            articles = findArticlesAfter(afterId);
+            if (articles.isEmpty()) {
+                return;
+            }
+
+            long lastId = articles.get(articles.size() - 1).getId();
+            writeChunk(out, articles, afterId, lastId);
+            exportedArticles.increment(articles.size());
+            afterId = lastId;
+        } while (articles.size() == chunkSize);
+    }
+
+    private void writeChunk(OutputStream out, List<ArticleDTO> articles, long afterId, long lastId) throws IOException {
+        // both lists are ordered by article id, so the comments are merged into the articles as they are read
+        List<ExportedComment> comments = List.of();
+        int next = 0;
+        boolean moreComments = true;
+        long afterArticleId = afterId + 1;
+        long afterCommentId = 0;
+        for (ArticleDTO article : articles) {
+            writeArticleStart(out, article);
+            boolean first = true;
+            while (true) {
+                if (next == comments.size()) {
+                    if (!moreComments) {
+                        break;
+                    }
+
+                    comments = findCommentsAfter(afterArticleId, afterCommentId, lastId);
+                    next = 0;
+                    moreComments = comments.size() == fetchSize;
+                    if (comments.isEmpty()) {
+                        break;
+                    }
+                }
+
+                var comment = comments.get(next);
+                if (comment.articleId() > article.getId()) {
+                    break;
+                }
+
+                next++;
+                afterArticleId = comment.articleId();
+                afterCommentId = comment.comment().getId();
+                // comments of a tombstoned article in the chunk's range are left out with their article
+                if (comment.articleId() == article.getId()) {
+                    if (!first) {
+                        out.write(COMMENT_SEPARATOR);
+                    }
+                    out.write(jsonb.toJson(comment.comment()).getBytes(StandardCharsets.UTF_8));
+                    first = false;
+                }
+            }
+            out.write(ARTICLE_END);
+        }
+    }
+
+    @Transactional
+    List<ArticleDTO> findArticlesAfter(long afterId) {
+        // scalar rows do not end up in the persistence context, so the session does not grow while exporting
+        return Article.getEntityManager().createQuery("""
+                        select a.id, a.title, a.content, a.publishDate, a.lastModified, a.author.id
+                        from Article a
+                        where a.id > :afterId
+                        order by a.id""", Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(chunkSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(ArticleExportService::toArticleDTO)
+                .toList();
+    }
+
+    @Transactional
+    List<ExportedComment> findCommentsAfter(long afterArticleId, long afterCommentId, long lastId) {
+        return Article.getEntityManager().createQuery("""
+                        select c.article.id, c.id, c.content, c.author.id, c.publishDate
+                        from Comment c
+                        where c.article.id <= :lastId
+                        and (c.article.id > :afterArticleId or (c.article.id = :afterArticleId and c.id > :afterCommentId))
+                        order by c.article.id, c.id""", Object[].class)
+                .setParameter("lastId", lastId)
+                .setParameter("afterArticleId", afterArticleId)
+                .setParameter("afterCommentId", afterCommentId)
+                .setMaxResults(fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(row -> new ExportedComment((Long) row[0],
+                        new CommentDTO((Long) row[1], (String) row[2], (Long) row[3], toString(row[4]))))
+                .toList();
+    }
+
+    private void writeArticleStart(OutputStream out, ArticleDTO article) throws IOException {
+        // the article is written without its comments, which are null and left out, and its closing brace.
+        // The comments are then written one at a time
+        String json = jsonb.toJson(article);
+        out.write(json.substring(0, json.length() - 1).getBytes(StandardCharsets.UTF_8));
+        out.write(COMMENTS_START);
+    }
+
+    private static ArticleDTO toArticleDTO(Object[] row) {
+        var article = new ArticleDTO();
+        article.setId((Long) row[0]);
+        article.setTitle((String) row[1]);
+        article.setContent((String) row[2]);
+        article.setPublishDate(toString(row[3]));
+        article.setLastModified(toString(row[4]));
+        article.setAuthorId((Long) row[5]);
+        return article;
+    }
+
+    private static String toString(Object date) {
+        return Optional.ofNullable((LocalDateTime) date).map(Objects::toString).orElse(null);
+    }
+
+    record ExportedComment(long articleId, CommentDTO comment) {
+    }
+}
@@ -0,0 +1,40 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.validator.ViolationMessage;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "An article from the import that could not be stored")
+public class ArticleImportFailureDTO {
+
+    @Schema(description = "The position of the article in the imported list or stream, starting from 0", example = "12")
+    private int index;
+
+    @Schema(description = "Why the article was not stored")
+    private List<ViolationMessage> violations;
+
+    public ArticleImportFailureDTO() {
+    }
+
+    public ArticleImportFailureDTO(int index, List<ViolationMessage> violations) {
+        this.index = index;
+        this.violations = violations;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public List<ViolationMessage> getViolations() {
+        return violations;
+    }
+
+    public void setViolations(List<ViolationMessage> violations) {
+        this.violations = violations;
+    }
+}
@@ -0,0 +1,32 @@
+package com.vidasoft.magman.article;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Schema(description = "The outcome of a bulk article import")
+public class ArticleImportResultDTO {
+
+    @Schema(description = "The number of articles that were stored", example = "9998")
+    private int imported;
+
+    @Schema(description = "The articles that could not be stored")
+    private List<ArticleImportFailureDTO> failures = new ArrayList<>();
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public List<ArticleImportFailureDTO> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<ArticleImportFailureDTO> failures) {
+        this.failures = failures;
+    }
+}
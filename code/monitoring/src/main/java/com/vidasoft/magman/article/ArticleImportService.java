@@ -0,0 +1,153 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.Author;
+import com.vidasoft.magman.validator.ValidationService;
+import com.vidasoft.magman.validator.ViolationMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbException;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ApplicationScoped
+public class ArticleImportService {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticleImportService.class.getName());
+
+    @Inject
+    ValidationService validationService;
+
+    @Inject
+    Event<ArticleChangedPayload> articleChangedEvent;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.import.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    public ArticleImportResultDTO importArticles(List<ArticleDTO> articles, long authorId) {
+        var result = new ArticleImportResultDTO();
+        var chunk = new Chunk();
+        for (int i = 0; i < articles.size(); i++) {
+            add(chunk, i, articles.get(i), authorId, result);
+        }
+        flush(chunk, authorId, result);
+        return result;
+    }
+
+    public ArticleImportResultDTO importArticles(InputStream ndjson, long authorId) throws IOException {
+        var result = new ArticleImportResultDTO();
+        var chunk = new Chunk();
+        var reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        String line;
+        int index = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                add(chunk, index, jsonb.fromJson(line, ArticleDTO.class), authorId, result);
+            } catch (JsonbException e) {
+                result.getFailures().add(new ArticleImportFailureDTO(index, List.of(new ViolationMessage("", e.getMessage()))));
+            }
+            index++;
+        }
+        flush(chunk, authorId, result);
+        return result;
+    }
+
+    private void add(Chunk chunk, int index, ArticleDTO article, long authorId, ArticleImportResultDTO result) {
+        var violations = article == null ? List.of(new ViolationMessage("", "must not be null")) :
+                validationService.validateObject(article);
+        if (!violations.isEmpty()) {
+            result.getFailures().add(new ArticleImportFailureDTO(index, violations));
+            return;
+        }
+
+        chunk.indexes.add(index);
+        chunk.articles.add(article);
+        if (chunk.articles.size() >= chunkSize) {
+            flush(chunk, authorId, result);
+        }
+    }
+
+    private void flush(Chunk chunk, long authorId, ArticleImportResultDTO result) {
+        if (chunk.articles.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            persistChunk(chunk.articles, authorId);
+            result.setImported(result.getImported() + chunk.articles.size());
+        } catch (RuntimeException e) {
+            // the whole chunk was rolled back, so every article is stored again on its own and only a bad one fails
+            LOGGER.log(Level.WARNING, "Could not import a chunk of {0} articles, importing them one by one: {1}", new Object[]{chunk.articles.size(), e.getMessage()});
+            for (int i = 0; i < chunk.articles.size(); i++) {
+                persistOne(chunk.indexes.get(i), chunk.articles.get(i), authorId, result);
+            }
+        }
+        sample.stop(registry.timer("articles_import_chunk", "size", String.valueOf(chunkSize)));
+
+        chunk.indexes.clear();
+        chunk.articles.clear();
+    }
+
+    private void persistOne(int index, ArticleDTO article, long authorId, ArticleImportResultDTO result) {
+        try {
+            persistChunk(List.of(article), authorId);
+            result.setImported(result.getImported() + 1);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not import article {0}: {1}", new Object[]{index, e.getMessage()});
+            result.getFailures().add(new ArticleImportFailureDTO(index, List.of(new ViolationMessage("", "The article could not be stored"))));
+        }
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void persistChunk(List<ArticleDTO> articleDTOs, long authorId) {
+        var entityManager = Article.getEntityManager();
+        var author = entityManager.getReference(Author.class, authorId);
+        var now = LocalDateTime.now();
+
+        List<Article> articles = new ArrayList<>(articleDTOs.size());
+        for (ArticleDTO articleDTO : articleDTOs) {
+            var article = new Article(articleDTO.getTitle(), articleDTO.getContent(), author);
+            article.publishDate = now;
+            article.lastModified = now;
+            entityManager.persist(article);
+            articles.add(article);
+        }
+
+        // sends the inserts in JDBC batches and keeps the persistence context from growing between chunks
+        entityManager.flush();
+        entityManager.clear();
+        articles.forEach(article -> articleChangedEvent.fire(ArticleChangedPayload.updated(article)));
+    }
+
+    private static class Chunk {
+        final List<Integer> indexes = new ArrayList<>();
+        final List<ArticleDTO> articles = new ArrayList<>();
+    }
+}
@@ -0,0 +1,69 @@
+package com.vidasoft.magman.article;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Selects the articles an advertiser should be added to. The given criteria must all match")
+public class ArticlePromotionDTO {
+
+    @NotNull
+    @Positive
+    @Schema(description = "The advertiser sponsoring the articles", example = "10")
+    private Long advertiserId;
+
+    @Schema(description = "Only these articles", example = "[3, 4, 5]")
+    private List<@NotNull @Positive Long> articleIds;
+
+    @Positive
+    @Schema(description = "Only the articles of this author", example = "256")
+    private Long authorId;
+
+    @Schema(description = "Only articles published on or after this day", example = "2022-01-01")
+    private String publishedFrom;
+
+    @Schema(description = "Only articles published on or before this day", example = "2022-12-31")
+    private String publishedTo;
+
+    public Long getAdvertiserId() {
+        return advertiserId;
+    }
+
+    public void setAdvertiserId(Long advertiserId) {
+        this.advertiserId = advertiserId;
+    }
+
+    public List<Long> getArticleIds() {
+        return articleIds;
+    }
+
+    public void setArticleIds(List<Long> articleIds) {
+        this.articleIds = articleIds;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getPublishedFrom() {
+        return publishedFrom;
+    }
+
+    public void setPublishedFrom(String publishedFrom) {
+        this.publishedFrom = publishedFrom;
+    }
+
+    public String getPublishedTo() {
+        return publishedTo;
+    }
+
+    public void setPublishedTo(String publishedTo) {
+        this.publishedTo = publishedTo;
+    }
+}
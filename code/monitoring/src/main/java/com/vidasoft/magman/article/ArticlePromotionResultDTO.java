@@ -0,0 +1,25 @@
+package com.vidasoft.magman.article;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "The outcome of a promotion")
+public class ArticlePromotionResultDTO {
+
+    @Schema(description = "The number of articles the advertiser was added to. Articles that already had it are not counted", example = "1200")
+    private int promoted;
+
+    public ArticlePromotionResultDTO() {
+    }
+
+    public ArticlePromotionResultDTO(int promoted) {
+        this.promoted = promoted;
+    }
+
+    public int getPromoted() {
+        return promoted;
+    }
+
+    public void setPromoted(int promoted) {
+        this.promoted = promoted;
+    }
+}
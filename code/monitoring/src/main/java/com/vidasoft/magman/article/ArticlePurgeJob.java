@@ -0,0 +1,101 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.ArticleViewCount;
+import com.vidasoft.magman.model.Comment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ApplicationScoped
+public class ArticlePurgeJob {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticlePurgeJob.class.getName());
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.purge.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.purge.batch-size", defaultValue = "20")
+    int batchSize;
+
+    private final AtomicInteger pendingArticles = new AtomicInteger();
+
+    private Counter purgedArticles;
+    private Counter purgedComments;
+    private Counter purgedAdvertisers;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void init() {
+        purgedArticles = registry.counter("articles_purged");
+        purgedComments = registry.counter("articles_purged_comments");
+        purgedAdvertisers = registry.counter("articles_purged_advertisers");
+        chunkTimer = registry.timer("articles_purge_chunk");
+        registry.gauge("articles_pending_purge", pendingArticles);
+    }
+
+    @Scheduled(every = "${magman.article.purge.every:5s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void purgeDeletedArticles() {
+        List<Long> articleIds = findDeletedIds();
+        pendingArticles.set(articleIds.size());
+        for (Long articleId : articleIds) {
+            try {
+                purgeChunks(() -> deleteComments(articleId), purgedComments);
+                purgeChunks(() -> deleteAdvertisers(articleId), purgedAdvertisers);
+                if (deleteArticle(articleId)) {
+                    purgedArticles.increment();
+                }
+                pendingArticles.decrementAndGet();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not purge article {0}, will retry: {1}", new Object[]{articleId, e.getMessage()});
+            }
+        }
+    }
+
+    // every chunk runs in its own short transaction, so the locks are released before the next one
+    private void purgeChunks(IntSupplier chunk, Counter purged) {
+        int deleted;
+        do {
+            deleted = chunkTimer.record(chunk::getAsInt);
+            purged.increment(deleted);
+        } while (deleted == chunkSize);
+    }
+
+    @Transactional
+    List<Long> findDeletedIds() {
+        return Article.findDeletedIds(batchSize);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int deleteComments(long articleId) {
+        return Comment.deleteChunkForArticle(articleId, chunkSize);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    int deleteAdvertisers(long articleId) {
+        return Article.purgeAdvertisers(articleId, chunkSize);
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    boolean deleteArticle(long articleId) {
+        ArticleViewCount.deleteForArticle(articleId);
+        return Article.purge(articleId);
+    }
+}
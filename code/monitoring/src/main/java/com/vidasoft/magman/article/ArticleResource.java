@@ -1,17 +1,47 @@
 package com.vidasoft.magman.article;
 
+import com.vidasoft.magman.advertiser.SponsorRotation;
+import com.vidasoft.magman.comment.CommentCursor;
+import com.vidasoft.magman.http.EntityTags;
 import com.vidasoft.magman.model.Advertiser;
 import com.vidasoft.magman.model.Article;
 import com.vidasoft.magman.model.Author;
-import com.vidasoft.magman.model.User;
-import com.vidasoft.magman.security.LoggedUser;
+import com.vidasoft.magman.model.Manager;
+import com.vidasoft.magman.search.ArticleSearchIndex;
+import com.vidasoft.magman.search.SearchCursor;
+import com.vidasoft.magman.search.SearchHit;
+import com.vidasoft.magman.security.CurrentUser;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.security.Authenticated;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.enterprise.context.RequestScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 import java.util.stream.Collectors;
 
 @RequestScoped
@@ -21,14 +51,43 @@ public class ArticleResource implements ArticleAPI {
     ArticleService articleService;
 
     @Inject
-    @LoggedUser
-    User loggedUser;
+    CurrentUser currentUser;
+
+    @Inject
+    ArticleResponseCache articleResponseCache;
+
+    @Inject
+    Event<ArticleChangedPayload> articleChangedEvent;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    ArticleSearchIndex articleSearchIndex;
+
+    @Inject
+    ArticleExportService articleExportService;
+
+    @Inject
+    ArticleImportService articleImportService;
+
+    @Inject
+    ArticleViewCounter articleViewCounter;
+
+    @Inject
+    SponsorRotation sponsorRotation;
+
+    @Context
+    UriInfo uriInfo;
+
+    @Context
+    HttpHeaders headers;
 
 
     @Override
     @Transactional
     public Response createArticle(ArticleDTO articleDTO) {
-        if (loggedUser instanceof Author author) {
+        if (currentUser.get() instanceof Author author) {
             Article article = articleService.createArticle(articleDTO.getTitle(), articleDTO.getContent(), author);
             return Response.created(URI.create(String.format("article/%s", article.id))).build();
         } else {
@@ -36,61 +95,291 @@ public class ArticleResource implements ArticleAPI {
         }
     }
 
+    @Override
+    public Response importArticles(List<ArticleDTO> articleDTOs) {
+        if (currentUser.get() instanceof Author author) {
+            return Response.ok(articleImportService.importArticles(articleDTOs, author.id)).build();
+        } else {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+    }
 
     @Override
-    public Response getArticle(Long articleId) {
-        return articleService.getArticle(articleId)
-                .map(article -> Response.ok(new ArticleDTO(article)).build())
-                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    public Response importArticles(InputStream articles) throws IOException {
+        if (currentUser.get() instanceof Author author) {
+            return Response.ok(articleImportService.importArticles(articles, author.id)).build();
+        } else {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
     }
 
 
+    @Override
+    public Response getArticle(Long articleId, String ifNoneMatch, ArticleInclude include, int commentLimit) {
+        if (include == ArticleInclude.COMMENTS) {
+            return getArticleWithComments(articleId, commentLimit);
+        }
+
+        Locale locale = headers.getAcceptableLanguages().stream().findFirst().orElse(Locale.ROOT);
+        String eTag = articleResponseCache.currentETag(articleId);
+        // the client shows the sponsors of its own copy, which were counted when it got them
+        if (EntityTags.matches(ifNoneMatch, eTag)) {
+            articleViewCounter.record(articleId);
+            return Response.notModified(EntityTags.of(eTag)).build();
+        }
+
+        ArticleBody body = eTag == null ? null : articleResponseCache.get(eTag, locale);
+        if (body == null) {
+            var stamp = articleResponseCache.stamp();
+            Optional<Article> article = articleService.getArticle(articleId);
+            if (article.isEmpty()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            body = ArticleBody.of(jsonb, new ArticleDTO(article.get()));
+            eTag = articleResponseCache.eTag(articleId, article.get().version);
+            articleResponseCache.put(stamp, articleId, article.get().version, locale, body);
+
+            if (EntityTags.matches(ifNoneMatch, eTag)) {
+                articleViewCounter.record(articleId);
+                return Response.notModified(EntityTags.of(eTag)).build();
+            }
+        }
+
+        articleViewCounter.record(articleId);
+        return Response.ok(body.withSponsors(jsonb, sponsorRotation.sponsorshipSuffix(articleId)), MediaType.APPLICATION_JSON_TYPE)
+                .tag(EntityTags.of(eTag))
+                .build();
+    }
+
+
+    private Response getArticleWithComments(long articleId, int commentLimit) {
+        // comments change without touching the article version, so this response is neither cached nor tagged
+        return articleService.getArticleWithComments(articleId, commentLimit)
+                .map(found -> {
+                    articleViewCounter.record(articleId);
+                    var articleDTO = new ArticleDTO(found.article());
+                    articleDTO.setComments(found.comments());
+                    var response = Response.ok(articleDTO);
+                    if (found.comments().size() == commentLimit) {
+                        // points at the page right after the included comments
+                        var comments = uriInfo.getBaseUriBuilder().path("article/{id}/comment").queryParam("size", commentLimit);
+                        var last = CommentCursor.of(found.comments().get(commentLimit - 1));
+                        if (last.publishDate() != null) {
+                            comments.queryParam("after", last.encode());
+                        }
+                        response.link(comments.build(articleId), "comments");
+                    }
+                    return response.build();
+                })
+                .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+    }
+
     @Override
     @Transactional
-    public Response editArticle(Long articleId, ArticleDTO articleDTO) {
-        Article article = Article.findById(articleId);
+    public Response editArticle(Long articleId, ArticleDTO articleDTO, String ifMatch) {
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            return editArticleIfMatch(articleId, articleDTO, ifMatch);
+        }
+
+        var authorId = Article.findAuthorId(articleId);
 
-        if (article == null) {
+        if (authorId.isEmpty()) {
             return Response.status(Response.Status.NOT_FOUND).build();
-        } else if (!loggedUser.equals(article.author)) {                //assuming AbstractEntity.equals is overridden
+        } else if (!authorId.get().equals(currentUser.getId())) {
             return Response.status(Response.Status.FORBIDDEN).build();
         } else {
+            Article article = Article.findById(articleId);
             articleService.editArticle(article, articleDTO.getTitle(), articleDTO.getContent());
             return Response.ok(new ArticleDTO(article)).build();
         }
     }
 
 
+    private Response editArticleIfMatch(long articleId, ArticleDTO articleDTO, String ifMatch) {
+        List<Long> versions = ArticleResponseCache.matchingVersions(ifMatch, articleId);
+        if (!versions.isEmpty()) {
+            var edited = articleService.editArticle(articleId, currentUser.getId(), versions, articleDTO.getTitle(), articleDTO.getContent());
+            if (edited.isPresent()) {
+                return Response.ok(edited.get().article())
+                        .tag(EntityTags.of(articleResponseCache.eTag(articleId, edited.get().version())))
+                        .build();
+            }
+        }
+
+        // only a rejected edit pays for finding out why it was rejected
+        var authorId = Article.findAuthorId(articleId);
+        if (authorId.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } else if (!authorId.get().equals(currentUser.getId())) {
+            return Response.status(Response.Status.FORBIDDEN).build();
+        } else {
+            return Response.status(Response.Status.PRECONDITION_FAILED).build();
+        }
+    }
+
     @Override
     @Transactional
     public void deleteArticle(Long articleId) {
-        Article.delete(articleId, loggedUser.id);
+        if (Article.delete(articleId, currentUser.getId())) {
+            articleChangedEvent.fire(ArticleChangedPayload.deleted(articleId));
+        }
     }
 
 
     @Override
-    public Response getArticles(int page, int size, Long authorId) {
+    public Response getArticles(int page, int size, Long authorId, String after, ArticleView view) {
+        PanacheQuery<Article> query;
+        if (after == null) {
+            query = Article.findFeed(authorId, null, null);
+        } else {
+            Optional<ArticleCursor> cursor = ArticleCursor.decode(after);
+            if (cursor.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            query = Article.findFeed(authorId, cursor.get().publishDate(), cursor.get().id());
+            page = 1;
+        }
+
+        if (view == ArticleView.SUMMARY) {
+            List<ArticleSummaryDTO> summaries = query.project(ArticleSummaryDTO.class)
+                    .page(page - 1, size)
+                    .list();
+            return buildPage(summaries, size, summaries.isEmpty() ? null :
+                    ArticleCursor.of(summaries.get(summaries.size() - 1)));
+        }
+
+        List<Article> articles = query.page(page - 1, size).list();
+        return buildPage(articles.stream().map(ArticleDTO::new).collect(Collectors.toList()), size,
+                articles.isEmpty() ? null : ArticleCursor.of(articles.get(articles.size() - 1)));
+    }
+
+    private Response buildPage(List<?> articles, int size, ArticleCursor last) {
+        var response = Response.ok(articles);
+        if (articles.size() == size && last.publishDate() != null) {
+            response.links(nextLink(last.encode()));
+        }
+
+        return response.build();
+    }
+
+    private Link nextLink(String after) {
+        var query = new StringJoiner("&");
+        uriInfo.getQueryParameters().forEach((name, values) -> {
+            if (!name.equals("page") && !name.equals("after")) {
+                values.forEach(value -> query.add(encode(name) + "=" + encode(value)));
+            }
+        });
+        query.add("after=" + after);
 
-        List<Article> articles = (authorId == null ? Article.findAll() :
-                Article.find("author.id = ?1", authorId))
-                .page(page - 1, size)
-                .list();
+        return Link.fromUri(uriInfo.getAbsolutePathBuilder().replaceQuery(query.toString()).build())
+                .rel("next")
+                .build();
+    }
 
-        return Response.ok(articles.stream().map(ArticleDTO::new).collect(Collectors.toList())).build();
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+
+    // repeated from the API, security annotations on the interface are not enforced for this resource
+    @Override
+    @Authenticated
+    public List<ArticleViewsDTO> getTopArticles(ViewWindow window, int size) {
+        return articleViewCounter.getTop(window, size);
+    }
+
+    // repeated from the API, security annotations on the interface are not enforced for this resource
+    @Override
+    @Authenticated
+    public Response searchArticles(String query, int size, String after) {
+        SearchCursor cursor = null;
+        if (after != null) {
+            Optional<SearchCursor> decoded = SearchCursor.decode(after);
+            if (decoded.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            cursor = decoded.get();
+        }
+
+        List<SearchHit> hits = articleSearchIndex.search(query, cursor, size);
+        Map<Long, ArticleSummaryDTO> summaries = hits.isEmpty() ? Map.of() :
+                Article.find("id in ?1", hits.stream().map(SearchHit::articleId).toList())
+                        .project(ArticleSummaryDTO.class)
+                        .stream()
+                        .collect(Collectors.toMap(ArticleSummaryDTO::getId, Function.identity()));
+
+        var response = Response.ok(hits.stream()
+                .map(hit -> summaries.get(hit.articleId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        if (hits.size() == size) {
+            response.links(nextLink(SearchCursor.of(hits.get(hits.size() - 1)).encode()));
+        }
+
+        return response.build();
+    }
+
+
+    // repeated from the API, security annotations on the interface are not enforced for this resource
+    @Override
+    @RolesAllowed({Manager.ROLE_NAME})
+    public Response exportArticles(boolean gzip) {
+        StreamingOutput stream = out -> {
+            if (gzip) {
+                try (var compressed = new GZIPOutputStream(out)) {
+                    articleExportService.exportArticles(compressed);
+                }
+            } else {
+                articleExportService.exportArticles(out);
+            }
+        };
+
+        var response = Response.ok(stream, ArticleAPI.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.build();
     }
 
 
     @Override
     @Transactional
+    @RolesAllowed({Manager.ROLE_NAME})
     public Response addAdvertiserToArticle(Long id, Long advertiserId) {
-        Article article = Article.findById(id);
-        Advertiser advertiser = Advertiser.findById(advertiserId);
+        if (Article.promote(advertiserId, List.of(id), null, null, null) > 0
+                || (Article.count("id", id) > 0 && Advertiser.count("id", advertiserId) > 0)) {
+            return Response.status(Response.Status.NO_CONTENT).build();
+        }
 
-        if (article == null || advertiser == null) {
+        return Response.status(Response.Status.NOT_FOUND).build();
+    }
+
+    @Override
+    @Transactional
+    @RolesAllowed({Manager.ROLE_NAME})
+    public Response promoteArticles(ArticlePromotionDTO promotion) {
+        LocalDate publishedFrom;
+        LocalDate publishedTo;
+        try {
+            publishedFrom = Optional.ofNullable(promotion.getPublishedFrom()).map(LocalDate::parse).orElse(null);
+            publishedTo = Optional.ofNullable(promotion.getPublishedTo()).map(LocalDate::parse).orElse(null);
+        } catch (DateTimeParseException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        // without any criteria, or with an empty id list, the promotion would reach every article or none
+        if (promotion.getArticleIds() == null && promotion.getAuthorId() == null && publishedFrom == null && publishedTo == null
+                || promotion.getArticleIds() != null && promotion.getArticleIds().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } else if (Advertiser.count("id", promotion.getAdvertiserId()) == 0) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        article.advertisers.add(advertiser);
-        return Response.status(Response.Status.NO_CONTENT).build();
+        int promoted = Article.promote(promotion.getAdvertiserId(), promotion.getArticleIds(), promotion.getAuthorId(),
+                publishedFrom, publishedTo);
+        return Response.ok(new ArticlePromotionResultDTO(promoted)).build();
     }
 }
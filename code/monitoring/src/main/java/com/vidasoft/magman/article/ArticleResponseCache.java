@@ -0,0 +1,118 @@
+package com.vidasoft.magman.article;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@ApplicationScoped
+public class ArticleResponseCache {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.response-cache.max-bytes", defaultValue = "16777216")
+    long maxBytes;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.response-cache.max-articles", defaultValue = "100000")
+    long maxArticles;
+
+    private Cache<Long, Long> articleVersions;
+
+    private Cache<ResponseKey, ArticleBody> responses;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        articleVersions = Caffeine.newBuilder()
+                .maximumSize(maxArticles)
+                .build();
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<ResponseKey, ArticleBody>weigher((key, body) -> body.length())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, responses, "article_responses");
+        Gauge.builder("article_responses_bytes", responses,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public String currentETag(long articleId) {
+        var version = articleVersions.getIfPresent(articleId);
+        return version == null ? null : eTag(articleId, version);
+    }
+
+    // names the article version, not the sponsors drawn for each view of it
+    public String eTag(long articleId, long version) {
+        return "\"%d-%d\"".formatted(articleId, version);
+    }
+
+    public ArticleBody get(String eTag, Locale locale) {
+        return responses.getIfPresent(new ResponseKey(eTag, locale));
+    }
+
+    // taken before loading an article, so put can tell whether it changed in the meantime
+    public Stamp stamp() {
+        return new Stamp(invalidations.get());
+    }
+
+    public void put(Stamp stamp, long articleId, long version, Locale locale, ArticleBody body) {
+        responses.put(new ResponseKey(eTag(articleId, version), locale), body);
+        articleVersions.put(articleId, version);
+        if (stamp.invalidations() != invalidations.get()) {
+            // an article was changed while this one was being loaded, so the version we read might be stale
+            articleVersions.invalidate(articleId);
+        }
+    }
+
+    public void invalidate(long articleId) {
+        invalidations.incrementAndGet();
+        articleVersions.invalidate(articleId);
+    }
+
+    // the article versions a strong If-Match can refer to
+    public static List<Long> matchingVersions(String ifMatch, long articleId) {
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .filter(tag -> tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\""))
+                .map(tag -> tag.substring(1, tag.length() - 1).split("-"))
+                .filter(parts -> parts.length == 2 && parts[0].equals(String.valueOf(articleId)))
+                .flatMap(parts -> {
+                    try {
+                        return Stream.of(Long.parseLong(parts[1]));
+                    } catch (NumberFormatException e) {
+                        return Stream.empty();
+                    }
+                })
+                .toList();
+    }
+
+    void onArticleChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleChangedPayload payload) {
+        invalidate(payload.articleId());
+    }
+
+    public record Stamp(long invalidations) {
+    }
+
+    private record ResponseKey(String eTag, Locale locale) {
+    }
+}
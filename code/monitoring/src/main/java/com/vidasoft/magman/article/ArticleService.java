@@ -1,16 +1,22 @@
 package com.vidasoft.magman.article;
 
 import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.ArticleWithComments;
 import com.vidasoft.magman.model.Author;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ArticleService {
 
     Optional<Article> getArticle(long articleId);
 
+    Optional<ArticleWithComments> getArticleWithComments(long articleId, int commentLimit);
+
     Article createArticle(String title, String content, Author author);
 
     boolean editArticle(Article article, String title, String content);
 
+    Optional<EditedArticle> editArticle(long articleId, long authorId, List<Long> versions, String title, String content);
+
 }
@@ -3,22 +3,36 @@ package com.vidasoft.magman.article;
 import com.vidasoft.magman.interceptors.CreatesContent;
 import com.vidasoft.magman.interceptors.ModifiesContent;
 import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.ArticleWithComments;
 import com.vidasoft.magman.model.Author;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @ApplicationScoped
 public class ArticleServiceImpl implements ArticleService {
 
+    @Inject
+    Event<ArticleChangedPayload> articleChangedEvent;
+
     public Optional<Article> getArticle(long articleId) {
         return Article.findByIdOptional(articleId);
     }
 
+    public Optional<ArticleWithComments> getArticleWithComments(long articleId, int commentLimit) {
+        return Article.findWithComments(articleId, commentLimit);
+    }
+
     @CreatesContent
     public Article createArticle(String title, String content, Author author) {
         Article article = new Article(title, content, author);
         article.persist();
+        articleChangedEvent.fire(ArticleChangedPayload.updated(article));
         return article;
     }
 
@@ -26,8 +40,28 @@ public class ArticleServiceImpl implements ArticleService {
     public boolean editArticle(Article article, String title, String content) {
         article.title = title;
         article.content = content;
+        articleChangedEvent.fire(ArticleChangedPayload.updated(article));
 
         return true;
     }
 
+    public Optional<EditedArticle> editArticle(long articleId, long authorId, List<Long> versions, String title, String content) {
+        LocalDateTime lastModified = LocalDateTime.now();
+        var edit = Article.updateIfVersion(articleId, authorId, versions, title, content, lastModified);
+        if (edit.isEmpty()) {
+            return Optional.empty();
+        }
+
+        articleChangedEvent.fire(new ArticleChangedPayload(articleId, title, content, false));
+        var articleDTO = new ArticleDTO();
+        articleDTO.setId(articleId);
+        articleDTO.setTitle(title);
+        articleDTO.setContent(content);
+        articleDTO.setAuthorId(authorId);
+        // the same shape as an unconditional edit returns
+        articleDTO.setPublishDate(Optional.ofNullable(edit.get().publishDate()).map(Objects::toString).orElse(null));
+        articleDTO.setLastModified(lastModified.toString());
+        return Optional.of(new EditedArticle(articleDTO, edit.get().version()));
+    }
+
 }
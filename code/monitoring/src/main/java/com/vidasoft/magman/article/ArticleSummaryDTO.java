@@ -0,0 +1,88 @@
+package com.vidasoft.magman.article;
+
+import io.quarkus.hibernate.orm.panache.common.ProjectedFieldName;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+@Schema(description = "Contains the data needed to list an article, without its content")
+public class ArticleSummaryDTO {
+
+    @Schema(description = "The id of the article", example = "1234")
+    private Long id;
+
+    @Schema(description = "The title of the article", example = "The quick brown fox jumps over the lazy dog!")
+    private String title;
+
+    @Schema(description = "The date when the article was published on.", example = "2022-09-13T00:00")
+    private String publishDate;
+
+    @Schema(description = "The id of the author this article is written by.", example = "256")
+    private Long authorId;
+
+    @Schema(description = "The beginning of the article's content.", example = "This is a long article about a quick fox")
+    private String excerpt;
+
+    @Schema(description = "The number of comments on the article.", example = "42")
+    private long commentCount;
+
+    public ArticleSummaryDTO(long id, String title, LocalDateTime publishDate,
+                             @ProjectedFieldName("author.id") Long authorId, String excerpt, long commentCount) {
+        this.id = id;
+        this.title = title;
+        this.publishDate = Optional.ofNullable(publishDate).map(Objects::toString).orElse(null);
+        this.authorId = authorId;
+        this.excerpt = excerpt;
+        this.commentCount = commentCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPublishDate() {
+        return publishDate;
+    }
+
+    public void setPublishDate(String publishDate) {
+        this.publishDate = publishDate;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(Long authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(long commentCount) {
+        this.commentCount = commentCount;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vidasoft.magman.article;
+
+import java.util.Locale;
+
+public enum ArticleView {
+    SUMMARY, FULL;
+
+    public static ArticleView fromString(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,162 @@
+package com.vidasoft.magman.article;
+
+import com.vidasoft.magman.model.ArticleViewCount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@ApplicationScoped
+public class ArticleViewCounter {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticleViewCounter.class.getName());
+
+    private static final ViewWindow LONGEST_WINDOW = ViewWindow.WEEK;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.article.views.top-size", defaultValue = "100")
+    int topSize;
+
+    // views since the last flush. A flush resets the adders and drops the ones that had no views since the previous one
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // flushed views per clock hour, for the last week
+    private final ConcurrentSkipListMap<LocalDateTime, Map<Long, Long>> hours = new ConcurrentSkipListMap<>();
+
+    private volatile Map<ViewWindow, List<ArticleViewsDTO>> top = Map.of();
+
+    private Counter flushedViews;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        flushedViews = registry.counter("article_views_flushed");
+        flushTimer = registry.timer("article_views_flush");
+        registry.gaugeMapSize("article_views_tracked", List.of(), pending);
+    }
+
+    public void record(long articleId) {
+        while (true) {
+            var adder = pending.get(articleId);
+            if (adder == null) {
+                adder = pending.computeIfAbsent(articleId, id -> new LongAdder());
+            }
+            adder.increment();
+            // a flush only drops an adder it finds at zero, so if this one is gone the view went nowhere
+            if (pending.get(articleId) == adder) {
+                return;
+            }
+        }
+    }
+
+    public List<ArticleViewsDTO> getTop(ViewWindow window, int size) {
+        var articles = top.getOrDefault(window, List.of());
+        return articles.subList(0, Math.min(size, articles.size()));
+    }
+
+    @Transactional
+    void load(@Observes StartupEvent startupEvent) {
+        for (ArticleViewCount view : ArticleViewCount.findSince(firstHourOf(LONGEST_WINDOW, currentHour()))) {
+            hours.computeIfAbsent(view.hourStart, hour -> new ConcurrentHashMap<>()).put(view.articleId, view.views);
+        }
+        top = rankTop(currentHour());
+    }
+
+    @Scheduled(every = "${magman.article.views.flush-every:10s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void flush() {
+        flushTimer.record(() -> {
+            LocalDateTime hour = currentHour();
+            Map<Long, Long> views = new HashMap<>();
+            pending.forEach((articleId, adder) -> {
+                long count = adder.sumThenReset();
+                if (count > 0) {
+                    views.put(articleId, count);
+                } else {
+                    pending.computeIfPresent(articleId, (id, idle) -> idle.sum() == 0 ? null : idle);
+                }
+            });
+
+            if (!views.isEmpty()) {
+                try {
+                    write(hour, views);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Could not flush the views of {0} articles, will retry: {1}", new Object[]{views.size(), e.getMessage()});
+                    views.forEach((articleId, count) -> pending.computeIfAbsent(articleId, id -> new LongAdder()).add(count));
+                    return;
+                }
+
+                var hourViews = hours.computeIfAbsent(hour, h -> new ConcurrentHashMap<>());
+                views.forEach((articleId, count) -> hourViews.merge(articleId, count, Long::sum));
+                flushedViews.increment(views.values().stream().mapToLong(Long::longValue).sum());
+            }
+
+            hours.headMap(firstHourOf(LONGEST_WINDOW, hour)).clear();
+            top = rankTop(hour);
+        });
+    }
+
+    @Transactional
+    void write(LocalDateTime hour, Map<Long, Long> views) {
+        ArticleViewCount.addViews(hour, views);
+        ArticleViewCount.deleteBefore(firstHourOf(LONGEST_WINDOW, hour));
+    }
+
+    void flushOnShutdown(@Observes ShutdownEvent shutdownEvent) {
+        flush();
+    }
+
+    void onArticleChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleChangedPayload payload) {
+        if (payload.deleted()) {
+            pending.remove(payload.articleId());
+            hours.values().forEach(hourViews -> hourViews.remove(payload.articleId()));
+        }
+    }
+
+    private Map<ViewWindow, List<ArticleViewsDTO>> rankTop(LocalDateTime hour) {
+        Map<ViewWindow, List<ArticleViewsDTO>> ranked = new EnumMap<>(ViewWindow.class);
+        for (ViewWindow window : ViewWindow.values()) {
+            Map<Long, Long> totals = new HashMap<>();
+            hours.tailMap(firstHourOf(window, hour)).values()
+                    .forEach(hourViews -> hourViews.forEach((articleId, count) -> totals.merge(articleId, count, Long::sum)));
+            ranked.put(window, totals.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topSize)
+                    .map(entry -> new ArticleViewsDTO(entry.getKey(), entry.getValue()))
+                    .toList());
+        }
+        return ranked;
+    }
+
+    private static LocalDateTime currentHour() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static LocalDateTime firstHourOf(ViewWindow window, LocalDateTime hour) {
+        return hour.minusHours(window.getHours() - 1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.vidasoft.magman.article;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "How many times an article was read")
+public class ArticleViewsDTO {
+
+    @Schema(description = "The id of the article", example = "1234")
+    private long articleId;
+
+    @Schema(description = "The number of reads within the requested window", example = "5120")
+    private long views;
+
+    public ArticleViewsDTO() {
+    }
+
+    public ArticleViewsDTO(long articleId, long views) {
+        this.articleId = articleId;
+        this.views = views;
+    }
+
+    public long getArticleId() {
+        return articleId;
+    }
+
+    public void setArticleId(long articleId) {
+        this.articleId = articleId;
+    }
+
+    public long getViews() {
+        return views;
+    }
+
+    public void setViews(long views) {
+        this.views = views;
+    }
+}
@@ -0,0 +1,5 @@
+package com.vidasoft.magman.article;
+
+// the article as a conditional edit left it, with the version its new tag is made from
+public record EditedArticle(ArticleDTO article, long version) {
+}
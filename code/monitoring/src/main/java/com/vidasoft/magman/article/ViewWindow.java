@@ -0,0 +1,21 @@
+package com.vidasoft.magman.article;
+
+import java.util.Locale;
+
+public enum ViewWindow {
+    HOUR(1), DAY(24), WEEK(24 * 7);
+
+    private final int hours;
+
+    ViewWindow(int hours) {
+        this.hours = hours;
+    }
+
+    public int getHours() {
+        return hours;
+    }
+
+    public static ViewWindow fromString(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,14 +1,19 @@
 package com.vidasoft.magman.comment;
 
 import io.quarkus.security.Authenticated;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -20,14 +25,16 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.annotations.SseElementType;
 
-import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 @Authenticated
 @Path("/article/{id}/comment")
 @Tag(name = "Comments Resource", description = "Contains all the CRUD operations for comments")
 public interface CommentAPI {
     @POST
+    @Blocking
     @Consumes(MediaType.APPLICATION_JSON)
     @Operation(
             operationId = "createComment",
@@ -70,9 +77,13 @@ public interface CommentAPI {
             @APIResponse(
                     responseCode = "404",
                     description = "There was no article with the given id to attach comment to"
+            ),
+            @APIResponse(
+                    responseCode = "503",
+                    description = "Too many comments are waiting to be written. Retry after the time in the Retry-After header"
             )
     })
-    Response createComment(@Parameter(example = "123") @NotNull @Positive @PathParam("id") Long articleId, CommentDTO commentDTO);
+    CompletionStage<Response> createComment(@Parameter(example = "123") @NotNull @Positive @PathParam("id") Long articleId, CommentDTO commentDTO);
 
     @GET
     @Path("/{commentId}")
@@ -95,15 +106,60 @@ public interface CommentAPI {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(
             operationId = "getCommentsForArticle",
-            summary = "Returns all the comments for an article by its id"
+            summary = "Returns the comments for an article by its id, oldest first",
+            description = "Returns the first page of comments. Follow the `next` link for the following ones."
     )
     @APIResponses({
             @APIResponse(
                     responseCode = "200",
+                    headers = @Header(
+                            name = "Link",
+                            description = "Link to the next page of comments with rel=\"next\". Missing when this is the last page",
+                            schema = @Schema(
+                                    implementation = String.class,
+                                    example = "<http://localhost:8080/article/3/comment?size=20&after=MjAyMi0wOS0xM1QwMDowMXwyMzU>; rel=\"next\""
+                            )
+                    ),
                     content = @Content(
                             schema = @Schema(implementation = CommentDTO[].class)
                     )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "The size is out of range or the `after` token is invalid"
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no article with the given id, or it was deleted"
+            )
+    })
+    Response getCommentsForArticle(@Parameter(example = "123") @NotNull @Positive @PathParam("id") Long articleId,
+                                   @Parameter(description = "Size of the page, up to 100") @QueryParam("size") @DefaultValue("20") @Positive @Max(100) int size,
+                                   @Parameter(description = "Opaque token from the `next` link") @QueryParam("after") String after);
+
+    @GET
+    @Path("/stream")
+    @Blocking
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @SseElementType(MediaType.APPLICATION_JSON)
+    @Operation(
+            operationId = "streamComments",
+            summary = "Listen for new comments on an article",
+            description = "Subscribes to an SSE stream that receives every new comment on the article. Readers that fall " +
+                    "behind get a MISSED event instead of the comments that didn't fit in their buffer."
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Active SSE stream of new comments",
+                    content = @Content(
+                            schema = @Schema(implementation = CommentStreamEvent.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "404",
+                    description = "There is no article with the given id"
             )
     })
-    List<CommentDTO> getCommentsForArticle(@Parameter(example = "123") @NotNull @Positive @PathParam("id") Long articleId);
+    Multi<String> streamComments(@Parameter(example = "123") @NotNull @Positive @PathParam("id") Long articleId);
 }
@@ -0,0 +1,6 @@
+package com.vidasoft.magman.comment;
+
+import com.vidasoft.magman.model.Comment;
+
+public record CommentCreatedPayload(Comment comment) {
+}
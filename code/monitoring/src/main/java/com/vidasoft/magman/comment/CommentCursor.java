@@ -0,0 +1,32 @@
+package com.vidasoft.magman.comment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+public record CommentCursor(LocalDateTime publishDate, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static CommentCursor of(CommentDTO comment) {
+        return new CommentCursor(Optional.ofNullable(comment.getCreated()).map(LocalDateTime::parse).orElse(null),
+                comment.getId());
+    }
+
+    public static Optional<CommentCursor> decode(String token) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return Optional.of(new CommentCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.parseLong(decoded.substring(separatorIndex + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((publishDate + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -39,10 +40,15 @@ public class CommentDTO {
         this.created = created;
     }
 
+    public CommentDTO(Long id, String content, Long authorId, LocalDateTime created) {
+        this(id, content, authorId, Optional.ofNullable(created).map(Objects::toString).orElse(null));
+    }
+
     public CommentDTO(Comment comment) {
         id = comment.id;
         content = comment.content;
-        authorId = comment.author.id;
+        // an anonymous comment has no author
+        authorId = comment.author == null ? null : comment.author.id;
         created = Optional.ofNullable(comment.publishDate).map(Objects::toString).orElse(null);
     }
 
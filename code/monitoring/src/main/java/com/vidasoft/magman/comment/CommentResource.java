@@ -2,35 +2,50 @@ package com.vidasoft.magman.comment;
 
 import com.vidasoft.magman.model.Article;
 import com.vidasoft.magman.model.Comment;
-import com.vidasoft.magman.model.User;
-import com.vidasoft.magman.security.LoggedUser;
+import com.vidasoft.magman.security.CurrentUser;
 import com.vidasoft.magman.validator.ValidationService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Multi;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
 import java.net.URI;
 import java.sql.Time;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public class CommentResource implements CommentAPI {
 
     @Inject
     CommentService commentService;
 
+    @Inject
+    CommentWriteBehind commentWriteBehind;
+
+    @Inject
+    CommentStreams commentStreams;
+
     @Inject
     ValidationService validationService;
 
     @Inject
-    @LoggedUser
-    User loggedUser;
+    CurrentUser currentUser;
 
     @Inject
     MeterRegistry registry;
 
+    @Context
+    UriInfo uriInfo;
+
     private Timer createCommentTimer;
     private Timer getCommentsTimer;
 
@@ -43,25 +58,48 @@ public class CommentResource implements CommentAPI {
     }
 
     @Override
-    @Transactional
-    public Response createComment(Long articleId, CommentDTO commentDTO) {
+    public CompletionStage<Response> createComment(Long articleId, CommentDTO commentDTO) {
         Timer.Sample sample = Timer.start();
 
         var commentViolations = validationService.validateObject(commentDTO);
         if (commentViolations.size() > 0) {
-            return Response.status(Response.Status.BAD_REQUEST).entity(commentViolations).build();
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST).entity(commentViolations).build());
         }
 
-        Article article = Article.findById(articleId);
-        if (article == null) {
+        if (!commentWriteBehind.isEnabled()) {
+            return CompletableFuture.completedFuture(createCommentNow(articleId, commentDTO.getContent(), sample));
+        }
+
+        // the worker thread is released here, the response is sent once the batch with this comment is committed.
+        // The location is resolved now, the request is no longer current on the thread that completes the batch
+        var location = uriInfo.getBaseUriBuilder().path("article/{articleId}/comment/{commentId}");
+        return commentWriteBehind.submit(commentDTO.getContent(), currentUser.getId(), articleId)
+                .map(commentId -> commentId.thenApply(id -> {
+                    sample.stop(createCommentTimer);
+                    return id.map(value -> Response.created(location.build(articleId, value)).build())
+                            .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+                }))
+                .orElseGet(() -> CompletableFuture.completedFuture(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, 1)
+                        .build()));
+    }
+
+    @Transactional
+    Response createCommentNow(Long articleId, String content, Timer.Sample sample) {
+        // the comment only needs a reference to the article, loading it would inflate its content for nothing
+        if (Article.findAuthorId(articleId).isEmpty()) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        Comment comment = commentService.createComment(commentDTO.getContent(), loggedUser, article);
+        Comment comment = commentService.createComment(content, currentUser.get(), Article.getEntityManager().getReference(Article.class, articleId));
 
         sample.stop(createCommentTimer);
 
-        return Response.created(URI.create(String.format("/article/%d/comment/%d", articleId, comment.id))).build();
+        return commentCreated(articleId, comment.id);
+    }
+
+    private Response commentCreated(Long articleId, Long commentId) {
+        return Response.created(URI.create(String.format("/article/%d/comment/%d", articleId, commentId))).build();
     }
 
     @Override
@@ -72,8 +110,43 @@ public class CommentResource implements CommentAPI {
     }
 
     @Override
-    public List<CommentDTO> getCommentsForArticle(Long articleId) {
-        return getCommentsTimer.record(() -> Comment.findByArticleId(articleId)
-                .stream().map(CommentDTO::new).toList());
+    public Response getCommentsForArticle(Long articleId, int size, String after) {
+        CommentCursor cursor = null;
+        if (after != null) {
+            Optional<CommentCursor> decoded = CommentCursor.decode(after);
+            if (decoded.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+            cursor = decoded.get();
+        }
+
+        // the comments of a deleted article are kept until it is purged, but they are not served any more
+        if (Article.findAuthorId(articleId).isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        var afterPublishDate = cursor == null ? null : cursor.publishDate();
+        var afterId = cursor == null ? null : cursor.id();
+        List<CommentDTO> comments = getCommentsTimer.record(() ->
+                Comment.findPageForArticle(articleId, afterPublishDate, afterId, size));
+
+        var response = Response.ok(comments);
+        if (comments.size() == size) {
+            var last = CommentCursor.of(comments.get(comments.size() - 1));
+            if (last.publishDate() != null) {
+                response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("after", last.encode()).build(), "next");
+            }
+        }
+
+        return response.build();
+    }
+
+    @Override
+    public Multi<String> streamComments(Long articleId) {
+        if (Article.count("id", articleId) == 0) {
+            throw new NotFoundException();
+        }
+
+        return commentStreams.subscribe(articleId);
     }
 }
@@ -6,6 +6,7 @@ import com.vidasoft.magman.model.Comment;
 import com.vidasoft.magman.model.User;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDateTime;
@@ -17,11 +18,22 @@ public class CommentService {
     @Inject
     EntityManager entityManager;
 
-    @CreatesContent
+    @Inject
+    Event<CommentCreatedPayload> commentCreatedEvent;
+
     public Comment createComment(String content, User author, Article article) {
+        Comment comment = createUncountedComment(content, author, article);
+        Article.addComments(article.id, 1);
+        return comment;
+    }
+
+    // leaves the comment count of the article to the caller, which can add up the comments of a batch in one update
+    @CreatesContent
+    public Comment createUncountedComment(String content, User author, Article article) {
         Comment comment = new Comment(content, author);
         comment.article = article;
         comment.persist();
+        commentCreatedEvent.fire(new CommentCreatedPayload(comment));
         return comment;
     }
 
@@ -0,0 +1,26 @@
+package com.vidasoft.magman.comment;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+@Schema(description = "An event on the live comment stream of an article")
+public record CommentStreamEvent(
+        @Schema(description = "COMMENT for a new comment. MISSED when the reader was too slow and some comments were " +
+                "skipped, they can be read from the comment list")
+        Type type,
+        @Schema(description = "The new comment, for COMMENT events")
+        CommentDTO comment,
+        @Schema(description = "How many comments were skipped, for MISSED events", example = "12")
+        Integer missed) {
+
+    public static CommentStreamEvent comment(CommentDTO comment) {
+        return new CommentStreamEvent(Type.COMMENT, comment, null);
+    }
+
+    public static CommentStreamEvent missed(int missed) {
+        return new CommentStreamEvent(Type.MISSED, null, missed);
+    }
+
+    public enum Type {
+        COMMENT, MISSED
+    }
+}
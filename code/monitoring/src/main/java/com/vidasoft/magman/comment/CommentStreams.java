@@ -0,0 +1,169 @@
+package com.vidasoft.magman.comment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.vertx.mutiny.core.eventbus.EventBus;
+import io.vertx.mutiny.core.eventbus.MessageConsumer;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// New comments are published once per article topic on the event bus. Every node holds a single consumer per topic
+// that its readers of the article are watching, and hands the already serialized event to each of them
+@ApplicationScoped
+public class CommentStreams {
+
+    private static final String ADDRESS_PREFIX = "article-comments.";
+
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+
+    private final AtomicInteger readers = new AtomicInteger();
+
+    @Inject
+    EventBus bus;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Jsonb jsonb;
+
+    // how many events are kept for a reader that can't keep up, the oldest ones are dropped after that
+    @Inject
+    @ConfigProperty(name = "magman.comment.stream.buffer-size", defaultValue = "64")
+    int bufferSize;
+
+    private Counter publishedEvents;
+    private Counter droppedEvents;
+
+    @PostConstruct
+    void init() {
+        publishedEvents = registry.counter("comment_stream_published");
+        droppedEvents = registry.counter("comment_stream_dropped");
+        registry.gauge("comment_stream_readers", readers);
+        registry.gaugeMapSize("comment_stream_topics", List.of(), topics);
+    }
+
+    void onCommentCreated(@Observes(during = TransactionPhase.AFTER_SUCCESS) CommentCreatedPayload payload) {
+        var comment = payload.comment();
+        bus.publish(ADDRESS_PREFIX + comment.article.id, jsonb.toJson(CommentStreamEvent.comment(new CommentDTO(comment))));
+        publishedEvents.increment();
+    }
+
+    public Multi<String> subscribe(long articleId) {
+        var reader = new Reader(bufferSize);
+        return Multi.createFrom().<String>emitter(emitter -> {
+                    join(articleId, reader);
+                    emitter.onTermination(() -> leave(articleId, reader));
+                    reader.attach(emitter);
+                }, BackPressureStrategy.IGNORE)
+                .onRequest().invoke(reader::request);
+    }
+
+    private void join(long articleId, Reader reader) {
+        topics.compute(articleId, (id, topic) -> {
+            if (topic == null) {
+                var created = new Topic();
+                created.consumer = bus.consumer(ADDRESS_PREFIX + id, message -> created.publish(message.body()));
+                topic = created;
+            }
+            topic.readers.add(reader);
+            return topic;
+        });
+        readers.incrementAndGet();
+    }
+
+    private void leave(long articleId, Reader reader) {
+        topics.computeIfPresent(articleId, (id, topic) -> {
+            topic.readers.remove(reader);
+            if (topic.readers.isEmpty()) {
+                topic.consumer.unregisterAndForget();
+                return null;
+            }
+            return topic;
+        });
+        readers.decrementAndGet();
+    }
+
+    private final class Topic {
+        private final Set<Reader> readers = ConcurrentHashMap.newKeySet();
+        private MessageConsumer<String> consumer;
+
+        private void publish(String event) {
+            readers.forEach(reader -> reader.offer(event));
+        }
+    }
+
+    // keeps what the connection hasn't asked for yet. When the buffer is full the oldest event is dropped, and the
+    // dropped events are reported to the client as a single MISSED event before the ones that were kept
+    private final class Reader {
+        private final ArrayDeque<String> buffer;
+        private final int capacity;
+        private MultiEmitter<? super String> emitter;
+        private long demand;
+        private int missed;
+        private boolean draining;
+
+        private Reader(int capacity) {
+            this.capacity = capacity;
+            buffer = new ArrayDeque<>(capacity);
+        }
+
+        private synchronized void attach(MultiEmitter<? super String> emitter) {
+            this.emitter = emitter;
+            drain();
+        }
+
+        private synchronized void offer(String event) {
+            if (buffer.size() == capacity) {
+                buffer.pollFirst();
+                missed++;
+                droppedEvents.increment();
+            }
+            buffer.addLast(event);
+            drain();
+        }
+
+        private synchronized void request(long requested) {
+            demand = demand + requested < 0 ? Long.MAX_VALUE : demand + requested;
+            drain();
+        }
+
+        // emitting can synchronously ask for more, the loop picks that up instead of recursing
+        private void drain() {
+            if (draining || emitter == null) {
+                return;
+            }
+
+            draining = true;
+            try {
+                while (demand > 0 && !emitter.isCancelled() && (missed > 0 || !buffer.isEmpty())) {
+                    demand--;
+                    if (missed > 0) {
+                        var event = jsonb.toJson(CommentStreamEvent.missed(missed));
+                        missed = 0;
+                        emitter.emit(event);
+                    } else {
+                        emitter.emit(buffer.pollFirst());
+                    }
+                }
+            } finally {
+                draining = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.vidasoft.magman.comment;
+
+import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.Comment;
+import com.vidasoft.magman.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Collects the comments of many requests and writes them in one transaction, so a burst of comments costs one
+// commit per batch instead of one per comment. Every caller is answered only after its batch is committed
+@ApplicationScoped
+public class CommentWriteBehind {
+
+    private static final Logger LOGGER = Logger.getLogger(CommentWriteBehind.class.getName());
+
+    @Inject
+    CommentService commentService;
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.comment.write-behind.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    @ConfigProperty(name = "magman.comment.write-behind.queue-size", defaultValue = "10000")
+    int queueSize;
+
+    @Inject
+    @ConfigProperty(name = "magman.comment.write-behind.batch-size", defaultValue = "500")
+    int batchSize;
+
+    // how long the writer waits for more comments after the first one arrives
+    @Inject
+    @ConfigProperty(name = "magman.comment.write-behind.linger", defaultValue = "5ms")
+    Duration linger;
+
+    private BlockingQueue<PendingComment> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter writtenComments;
+    private Counter rejectedComments;
+    private DistributionSummary batchSizes;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writtenComments = registry.counter("comments_write_behind_written");
+        rejectedComments = registry.counter("comments_write_behind_rejected");
+        batchSizes = registry.summary("comments_write_behind_batch_size");
+        batchTimer = registry.timer("comments_write_behind_batch");
+        registry.gaugeCollectionSize("comments_write_behind_queue_depth", List.of(), queue);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // completes with the id of the new comment, or with an empty optional when the article doesn't exist.
+    // Returns an empty optional right away when the queue is full
+    public Optional<CompletionStage<Optional<Long>>> submit(String content, long authorId, long articleId) {
+        var pending = new PendingComment(content, authorId, articleId, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            rejectedComments.increment();
+            return Optional.empty();
+        }
+
+        return Optional.of(pending.id());
+    }
+
+    void start(@Observes StartupEvent startupEvent) {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::drain, "comment-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void stop(@Observes ShutdownEvent shutdownEvent) throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        // the writer leaves only once the queue is empty, so every accepted comment is still written
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void drain() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                if (!linger.isZero() && queue.size() < batchSize - 1) {
+                    Thread.sleep(linger.toMillis());
+                }
+                queue.drainTo(batch, batchSize - 1);
+                batchTimer.record(() -> writeBatch(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                // writeBatch already answers every exception, this is an Error. Its batch fails, but the writer goes on,
+                // otherwise every later comment would wait for an answer that never comes
+                LOGGER.log(Level.SEVERE, "Could not write a batch of " + batch.size() + " comments", e);
+                batch.forEach(pending -> pending.id().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingComment> batch) {
+        List<Comment> comments;
+        try {
+            comments = write(batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                LOGGER.log(Level.WARNING, "Could not write a comment to article {0}: {1}", new Object[]{batch.get(0).articleId(), e.getMessage()});
+                batch.get(0).id().completeExceptionally(e);
+                return;
+            }
+
+            // the whole transaction was rolled back, so every comment is written again on its own and a bad one
+            // fails only its own caller
+            LOGGER.log(Level.WARNING, "Could not write a batch of {0} comments, writing them one by one: {1}", new Object[]{batch.size(), e.getMessage()});
+            batch.forEach(pending -> writeBatch(List.of(pending)));
+            return;
+        }
+
+        // answered only now, after the commit
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).id().complete(Optional.ofNullable(comments.get(i)).map(comment -> comment.id));
+        }
+        writtenComments.increment(comments.stream().filter(comment -> comment != null).count());
+        batchSizes.record(batch.size());
+    }
+
+    @Transactional
+    List<Comment> write(List<PendingComment> batch) {
+        Set<Long> articleIds = new HashSet<>();
+        batch.forEach(pending -> articleIds.add(pending.articleId()));
+        // one lookup for the whole batch. Deleted articles are left out, as with findById
+        Set<Long> existingArticleIds = new HashSet<>(entityManager
+                .createQuery("select a.id from Article a where a.id in :articleIds", Long.class)
+                .setParameter("articleIds", articleIds)
+                .getResultList());
+
+        List<Comment> comments = new ArrayList<>(batch.size());
+        Map<Long, Integer> addedComments = new HashMap<>();
+        for (PendingComment pending : batch) {
+            if (!existingArticleIds.contains(pending.articleId())) {
+                comments.add(null);
+                continue;
+            }
+
+            comments.add(commentService.createUncountedComment(pending.content(),
+                    entityManager.getReference(User.class, pending.authorId()),
+                    entityManager.getReference(Article.class, pending.articleId())));
+            addedComments.merge(pending.articleId(), 1, Integer::sum);
+        }
+        // one update per article, however many of its comments are in the batch
+        addedComments.forEach(Article::addComments);
+
+        return comments;
+    }
+
+    private record PendingComment(String content, long authorId, long articleId, CompletableFuture<Optional<Long>> id) {
+    }
+}
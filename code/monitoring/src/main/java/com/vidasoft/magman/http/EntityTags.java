@@ -0,0 +1,28 @@
+package com.vidasoft.magman.http;
+
+import jakarta.ws.rs.core.EntityTag;
+
+import java.util.Arrays;
+
+// Entity tags are kept quoted, the way they are sent in ETag headers and compared with the conditional headers
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static EntityTag of(String eTag) {
+        return new EntityTag(eTag.substring(1, eTag.length() - 1));
+    }
+
+    // weak comparison, as If-None-Match asks for
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+}
@@ -10,6 +10,7 @@ import com.vidasoft.magman.subscription.CreditCardDTO;
 import com.vidasoft.magman.subscription.SubscriberChargedPayload;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.mutiny.core.eventbus.EventBus;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
@@ -84,12 +85,16 @@ public class KafkaMessageService {
         registry.gaugeCollectionSize("payments_to_send", List.of(Tag.of("Tag1", "Tag1")), pendingMessages);
         LOGGER.info("Attempting to send payment message");
         String payloadString = JsonbBuilder.create().toJson(payload);
-        paymentsEmitter.send(payloadString).toCompletableFuture().join();
-        LOGGER.info("Successfully emitted message to payments topic: %s".formatted(payloadString));
-
-        registry.gaugeCollectionSize("payments_to_send", List.of(Tag.of("Tag1", "Tag1")), pendingMessages);
-        pendingMessages.remove(payload);
-        return CompletableFuture.completedFuture(null);
+        // hand back the broker acknowledgement instead of joining it, so no thread waits for a slow or missing broker.
+        // The result is completed on a worker thread, because the retries and the REST fallback that follow are blocking
+        return paymentsEmitter.send(payloadString)
+                .whenCompleteAsync((ignored, throwable) -> {
+                    if (throwable == null) {
+                        LOGGER.info("Successfully emitted message to payments topic: %s".formatted(payloadString));
+                        registry.gaugeCollectionSize("payments_to_send", List.of(Tag.of("Tag1", "Tag1")), pendingMessages);
+                        pendingMessages.remove(payload);
+                    }
+                }, Infrastructure.getDefaultWorkerPool());
     }
 
     @Transactional
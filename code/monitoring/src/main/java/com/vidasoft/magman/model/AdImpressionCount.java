@@ -0,0 +1,89 @@
+package com.vidasoft.magman.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// how many times an advertiser was shown with an article, rolled up per minute
+@Entity
+@Table(indexes = @Index(name = "ad_impression_count_advertiser_minute_idx", columnList = "advertiserId, minuteStart"))
+@IdClass(AdImpressionCount.Key.class)
+public class AdImpressionCount extends PanacheEntityBase {
+
+    private static final String ADD_IMPRESSIONS = "merge into AdImpressionCount i using (values (cast(? as bigint), cast(? as bigint), cast(? as timestamp), cast(? as bigint))) " +
+            "d(advertiserId, articleId, minuteStart, impressions) on i.advertiserId = d.advertiserId and i.articleId = d.articleId and i.minuteStart = d.minuteStart " +
+            "when matched then update set i.impressions = i.impressions + d.impressions " +
+            "when not matched then insert (advertiserId, articleId, minuteStart, impressions) values (d.advertiserId, d.articleId, d.minuteStart, d.impressions)";
+
+    @Id
+    public long advertiserId;
+
+    @Id
+    public long articleId;
+
+    // the start of the clock minute the impressions were counted in
+    @Id
+    public LocalDateTime minuteStart;
+
+    public long impressions;
+
+    public static void addImpressions(Map<Key, Long> impressions) {
+        // one batched statement for everything counted since the last flush
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement(ADD_IMPRESSIONS)) {
+                for (var entry : impressions.entrySet()) {
+                    statement.setLong(1, entry.getKey().advertiserId);
+                    statement.setLong(2, entry.getKey().articleId);
+                    statement.setTimestamp(3, Timestamp.valueOf(entry.getKey().minuteStart));
+                    statement.setLong(4, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    public static List<AdImpressionCount> findForAdvertiser(long advertiserId, LocalDateTime from, LocalDateTime to) {
+        return list("advertiserId = ?1 and minuteStart >= ?2 and minuteStart < ?3",
+                Sort.by("minuteStart").and("articleId"), advertiserId, from, to);
+    }
+
+    public static class Key implements Serializable {
+        public long advertiserId;
+        public long articleId;
+        public LocalDateTime minuteStart;
+
+        public Key() {
+        }
+
+        public Key(long advertiserId, long articleId, LocalDateTime minuteStart) {
+            this.advertiserId = advertiserId;
+            this.articleId = articleId;
+            this.minuteStart = minuteStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return advertiserId == key.advertiserId && articleId == key.articleId && minuteStart.equals(key.minuteStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(advertiserId) + Long.hashCode(articleId)) + minuteStart.hashCode();
+        }
+    }
+}
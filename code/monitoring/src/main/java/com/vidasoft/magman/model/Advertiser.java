@@ -1,15 +1,18 @@
 package com.vidasoft.magman.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToMany;
 import java.util.Set;
 
 @Entity
+@Cacheable
 public class Advertiser extends AbstractEntity {
 
+    public static final String SPONSORS_CACHE_REGION = "sponsors";
+
     public String name;
 
     public String website;
@@ -19,8 +22,8 @@ public class Advertiser extends AbstractEntity {
     @ManyToMany(mappedBy = "advertisers")
     public Set<Article> articles;
 
-    @Lob
-    public byte[] logo;
+    // SHA-256 of the logo in AdvertiserLogo, null when there is none. Serves as its ETag without reading the bytes
+    public String logoHash;
 
     @Enumerated(EnumType.STRING)
     public SponsorPackage sponsorPackage;
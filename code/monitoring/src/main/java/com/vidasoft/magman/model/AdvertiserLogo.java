@@ -0,0 +1,28 @@
+package com.vidasoft.magman.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+
+// kept apart from the advertiser, so the bytes are read only by the logo endpoint
+@Entity
+public class AdvertiserLogo extends PanacheEntityBase {
+
+    @Id
+    public Long advertiserId;
+
+    public String contentType;
+
+    @Lob
+    public byte[] content;
+
+    public AdvertiserLogo() {
+    }
+
+    public AdvertiserLogo(long advertiserId, String contentType, byte[] content) {
+        this.advertiserId = advertiserId;
+        this.contentType = contentType;
+        this.content = content;
+    }
+}
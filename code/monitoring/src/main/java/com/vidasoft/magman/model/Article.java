@@ -1,30 +1,98 @@
 package com.vidasoft.magman.model;
 
+import com.vidasoft.magman.comment.CommentDTO;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.panache.common.Sort;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.NamedQuery;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.jpa.HibernateHints;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.StringJoiner;
 
 @Entity
-@NamedQuery(name = Article.DELETE_ARTICLE_IF_ALLOWED,
-        query = "delete from Article a where a.id = :articleId and (a.author.id = :userId or (select count (m) from Manager m where m.id = :userId) > 0)")
+// in the order of the feed, which H2 reads an index in only one way
+@Table(indexes = {
+        @Index(name = "article_author_publish_date_id_idx", columnList = "author_id, publishDate desc, id desc"),
+        @Index(name = "article_publish_date_id_idx", columnList = "publishDate desc, id desc")
+})
+@SQLRestriction("deleted = false")
+@NamedQuery(name = Article.TOMBSTONE_ARTICLE_IF_ALLOWED,
+        query = "update Article a set a.deleted = true, a.version = a.version + 1 where a.id = :articleId " +
+                "and (a.author.id = :userId or (select count (m) from Manager m where m.id = :userId) > 0)")
+@NamedQuery(name = Article.UPDATE_ARTICLE_IF_VERSION,
+        query = "update Article a set a.title = :title, a.content = :content, a.excerpt = :excerpt, a.lastModified = :lastModified, " +
+                "a.version = a.version + 1 where a.id = :articleId and a.author.id = :authorId and a.version in :versions")
+@NamedQuery(name = Article.GET_ARTICLE_WITH_COMMENTS,
+        query = "select a, c.id, c.content, c.author.id, c.publishDate from Article a join fetch a.author " +
+                "left join Comment c on c.article = a where a.id = :articleId order by c.publishDate, c.id")
+@NamedQuery(name = Article.ADD_COMMENTS,
+        query = "update Article a set a.commentCount = a.commentCount + :delta where a.id = :articleId")
+@NamedQuery(name = Article.FIND_AUTHOR_ID, query = "select a.author.id from Article a where a.id = :articleId")
+@NamedQuery(name = Article.FIND_VERSION_AND_PUBLISH_DATE,
+        query = "select a.version, a.publishDate from Article a where a.id = :articleId")
+@NamedQuery(name = Article.FIND_IDS_AFTER, query = "select a.id from Article a where a.id > :afterId order by a.id")
+@NamedQuery(name = Article.RECONCILE_COMMENT_COUNTS,
+        query = "update Article a set a.commentCount = (select count(c) from Comment c where c.article = a) " +
+                "where a.id > :afterId and a.id <= :lastId " +
+                "and a.commentCount <> (select count(c) from Comment c where c.article = a)")
 public class Article extends PublishedContent {
 
-    public static final String DELETE_ARTICLE_IF_ALLOWED = "Article.deleteArticleIfAllowed";
+    public static final String TOMBSTONE_ARTICLE_IF_ALLOWED = "Article.tombstoneArticleIfAllowed";
+    public static final String UPDATE_ARTICLE_IF_VERSION = "Article.updateArticleIfVersion";
+    public static final String GET_ARTICLE_WITH_COMMENTS = "Article.getArticleWithComments";
+    public static final String ADD_COMMENTS = "Article.addComments";
+    public static final String FIND_AUTHOR_ID = "Article.findAuthorId";
+    public static final String FIND_VERSION_AND_PUBLISH_DATE = "Article.findVersionAndPublishDate";
+    public static final String FIND_IDS_AFTER = "Article.findIdsAfter";
+    public static final String RECONCILE_COMMENT_COUNTS = "Article.reconcileCommentCounts";
+
+    public static final Sort FEED_ORDER = Sort.descending("publishDate", "id");
+
+    public static final int EXCERPT_LENGTH = 200;
 
     public String title;
 
-    @Column(length = 10_000)
+    // compressed, so list and summary queries should read the excerpt instead
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(length = 40_000)
     public String content;
 
+    @Column(length = EXCERPT_LENGTH)
+    public String excerpt;
+
     @ManyToOne
     public Author author;
 
+    @ColumnDefault("false")
+    public boolean deleted;
+
+    // changed only by single-statement increments, never by flushing the entity, so a stale copy can't overwrite it
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    public long commentCount;
+
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "article_advertiser",
             joinColumns = @JoinColumn(name = "advertiser_id"),
@@ -41,11 +109,188 @@ public class Article extends PublishedContent {
         this.author = author;
     }
 
-    public static void delete(long articleId, long userId) {
-        Comment.deleteAllForArticle(articleId, userId);
-        getEntityManager().createNamedQuery(DELETE_ARTICLE_IF_ALLOWED)
+    @PrePersist
+    @PreUpdate
+    void updateExcerpt() {
+        excerpt = excerptOf(content);
+    }
+
+    public static String excerptOf(String content) {
+        return content == null ? null : content.substring(0, Math.min(content.length(), EXCERPT_LENGTH));
+    }
+
+    // edits the article in one statement, as long as it is still at one of the given versions. The version it is at
+    // afterwards is read in the same transaction, which holds the row lock of the update, so it is the one this edit made
+    public static Optional<ArticleEdit> updateIfVersion(long articleId, long authorId, List<Long> versions, String title,
+                                                        String content, LocalDateTime lastModified) {
+        int updated = getEntityManager().createNamedQuery(UPDATE_ARTICLE_IF_VERSION)
+                .setParameter("title", title)
+                .setParameter("content", content)
+                .setParameter("excerpt", excerptOf(content))
+                .setParameter("lastModified", lastModified)
+                .setParameter("articleId", articleId)
+                .setParameter("authorId", authorId)
+                .setParameter("versions", versions)
+                .executeUpdate();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+
+        Object[] edited = getEntityManager().createNamedQuery(FIND_VERSION_AND_PUBLISH_DATE, Object[].class)
+                .setParameter("articleId", articleId)
+                .getSingleResult();
+        return Optional.of(new ArticleEdit((Long) edited[0], (LocalDateTime) edited[1]));
+    }
+
+    public static void addComments(long articleId, int delta) {
+        getEntityManager().createNamedQuery(ADD_COMMENTS)
+                .setParameter("delta", delta)
+                .setParameter("articleId", articleId)
+                .executeUpdate();
+    }
+
+    // whether the article exists and who wrote it, without loading and inflating its content
+    public static Optional<Long> findAuthorId(long articleId) {
+        return getEntityManager().createNamedQuery(FIND_AUTHOR_ID, Long.class)
+                .setParameter("articleId", articleId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    public static List<Long> findIdsAfter(long afterId, int limit) {
+        return getEntityManager().createNamedQuery(FIND_IDS_AFTER, Long.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // recounts the comments of the articles in (afterId, lastId] and returns how many counts were wrong
+    public static int reconcileCommentCounts(long afterId, long lastId) {
+        return getEntityManager().createNamedQuery(RECONCILE_COMMENT_COUNTS)
+                .setParameter("afterId", afterId)
+                .setParameter("lastId", lastId)
+                .executeUpdate();
+    }
+
+    public static Optional<ArticleWithComments> findWithComments(long articleId, int commentLimit) {
+        // one row per comment, so limiting the rows bounds the comment page while the article comes with the first row
+        List<Object[]> rows = getEntityManager().createNamedQuery(GET_ARTICLE_WITH_COMMENTS, Object[].class)
+                .setParameter("articleId", articleId)
+                .setMaxResults(commentLimit)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var comments = rows.stream()
+                .filter(row -> row[1] != null)
+                .map(row -> new CommentDTO((Long) row[1], (String) row[2], (Long) row[3], Objects.toString(row[4], null)))
+                .toList();
+        return Optional.of(new ArticleWithComments((Article) rows.get(0)[0], comments));
+    }
+
+    // only marks the article as deleted, the ArticlePurgeJob removes it together with its comments later
+    public static boolean delete(long articleId, long userId) {
+        return getEntityManager().createNamedQuery(TOMBSTONE_ARTICLE_IF_ALLOWED)
                 .setParameter("articleId", articleId)
                 .setParameter("userId", userId)
+                .executeUpdate() > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Long> findDeletedIds(int limit) {
+        // native, because the deleted articles are hidden from every JPQL query
+        return ((List<Number>) getEntityManager().createNativeQuery("select id from Article where deleted = true order by id")
+                .setMaxResults(limit)
+                .getResultList())
+                .stream().map(Number::longValue).toList();
+    }
+
+    public static int purgeAdvertisers(long articleId, int limit) {
+        // the article id is stored in the advertiser_id column, see the join table mapping above.
+        // Native updates name the tables they touch, otherwise Hibernate drops every second-level cache region
+        return getEntityManager().createNativeQuery("delete from article_advertiser where advertiser_id = :articleId fetch first :limit rows only")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "article_advertiser")
+                .setParameter("articleId", articleId)
+                .setParameter("limit", limit)
                 .executeUpdate();
     }
+
+    // adds the advertiser to every matching article that doesn't have it yet, without loading either side
+    public static int promote(long advertiserId, Collection<Long> articleIds, Long authorId, LocalDate publishedFrom, LocalDate publishedTo) {
+        if (articleIds == null && authorId == null && publishedFrom == null && publishedTo == null) {
+            throw new IllegalArgumentException("A promotion needs at least one criterion");
+        } else if (articleIds != null && articleIds.isEmpty()) {
+            return 0;
+        }
+
+        var where = new StringJoiner(" and ", " and ", "").setEmptyValue("");
+        Map<String, Object> params = new HashMap<>();
+        if (articleIds != null) {
+            where.add("a.id in (:articleIds)");
+            params.put("articleIds", articleIds);
+        }
+        if (authorId != null) {
+            where.add("a.author_id = :authorId");
+            params.put("authorId", authorId);
+        }
+        if (publishedFrom != null) {
+            where.add("a.publishDate >= :publishedFrom");
+            params.put("publishedFrom", publishedFrom.atStartOfDay());
+        }
+        if (publishedTo != null) {
+            where.add("a.publishDate < :publishedTo");
+            params.put("publishedTo", publishedTo.plusDays(1).atStartOfDay());
+        }
+
+        // promotions of one advertiser take turns on its row, so the not exists below sees what the one before added
+        // and two of them never insert the same pair into the primary key
+        if (Advertiser.findById(advertiserId, LockModeType.PESSIMISTIC_WRITE) == null) {
+            return 0;
+        }
+
+        // the article id goes to the advertiser_id column, see the join table mapping above
+        var query = getEntityManager().createNativeQuery("""
+                        insert into article_advertiser (advertiser_id, article_id)
+                        select a.id, ad.id from Article a join Advertiser ad on ad.id = :advertiserId
+                        where a.deleted = false%s
+                        and not exists (select 1 from article_advertiser aa where aa.advertiser_id = a.id and aa.article_id = ad.id)
+                        """.formatted(where))
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "article_advertiser")
+                .setParameter("advertiserId", advertiserId);
+        params.forEach(query::setParameter);
+        return query.executeUpdate();
+    }
+
+    public static boolean purge(long articleId) {
+        return getEntityManager().createNativeQuery("delete from Article where id = :articleId and deleted = true")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, Article.class)
+                .setParameter("articleId", articleId)
+                .executeUpdate() > 0;
+    }
+
+    public static PanacheQuery<Article> findFeed(Long authorId, LocalDateTime afterPublishDate, Long afterId) {
+        var query = new StringJoiner(" and ");
+        Map<String, Object> params = new HashMap<>();
+        var order = FEED_ORDER;
+
+        // an unpublished article has no place in the feed, and no cursor could point past it
+        query.add("publishDate is not null");
+
+        if (authorId != null) {
+            query.add("author.id = :authorId");
+            params.put("authorId", authorId);
+            // the same order for a single author, spelled the way H2 matches it with the index
+            order = Sort.by("author").and("publishDate", Sort.Direction.Descending).and("id", Sort.Direction.Descending);
+        }
+
+        if (afterPublishDate != null && afterId != null) {
+            // seeks through the (author_id, publishDate, id) index instead of skipping over the previous pages
+            query.add("publishDate <= :afterPublishDate and (publishDate < :afterPublishDate or id < :afterId)");
+            params.put("afterPublishDate", afterPublishDate);
+            params.put("afterId", afterId);
+        }
+
+        return find(query.toString(), order, params);
+    }
 }
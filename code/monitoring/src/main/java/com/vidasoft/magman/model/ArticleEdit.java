@@ -0,0 +1,6 @@
+package com.vidasoft.magman.model;
+
+import java.time.LocalDateTime;
+
+public record ArticleEdit(long version, LocalDateTime publishDate) {
+}
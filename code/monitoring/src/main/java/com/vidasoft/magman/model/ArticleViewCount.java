@@ -0,0 +1,80 @@
+package com.vidasoft.magman.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Entity
+@Table(indexes = @Index(name = "article_view_count_hour_idx", columnList = "hourStart"))
+@IdClass(ArticleViewCount.Key.class)
+public class ArticleViewCount extends PanacheEntityBase {
+
+    private static final String ADD_VIEWS = "merge into ArticleViewCount v using (values (cast(? as bigint), cast(? as timestamp), cast(? as bigint))) " +
+            "d(articleId, hourStart, views) on v.articleId = d.articleId and v.hourStart = d.hourStart " +
+            "when matched then update set v.views = v.views + d.views " +
+            "when not matched then insert (articleId, hourStart, views) values (d.articleId, d.hourStart, d.views)";
+
+    @Id
+    public long articleId;
+
+    // the start of the clock hour the views were counted in
+    @Id
+    public LocalDateTime hourStart;
+
+    public long views;
+
+    public static void addViews(LocalDateTime hour, Map<Long, Long> views) {
+        // one batched statement for every article viewed since the last flush
+        getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement(ADD_VIEWS)) {
+                for (var entry : views.entrySet()) {
+                    statement.setLong(1, entry.getKey());
+                    statement.setTimestamp(2, Timestamp.valueOf(hour));
+                    statement.setLong(3, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    public static List<ArticleViewCount> findSince(LocalDateTime hour) {
+        return list("hourStart >= ?1", hour);
+    }
+
+    public static long deleteBefore(LocalDateTime hour) {
+        return delete("hourStart < ?1", hour);
+    }
+
+    public static long deleteForArticle(long articleId) {
+        return delete("articleId", articleId);
+    }
+
+    public static class Key implements Serializable {
+        public long articleId;
+        public LocalDateTime hourStart;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return articleId == key.articleId && hourStart.equals(key.hourStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(articleId) + hourStart.hashCode();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.vidasoft.magman.model;
+
+import com.vidasoft.magman.comment.CommentDTO;
+
+import java.util.List;
+
+public record ArticleWithComments(Article article, List<CommentDTO> comments) {
+}
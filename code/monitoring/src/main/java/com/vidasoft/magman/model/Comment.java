@@ -6,14 +6,18 @@ import com.vidasoft.magman.comment.CommentDTO;
 import jakarta.persistence.ColumnResult;
 import jakarta.persistence.ConstructorResult;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.NamedNativeQuery;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.SqlResultSetMapping;
+import jakarta.persistence.Table;
+import jakarta.persistence.TypedQuery;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "comment_article_publish_date_id_idx", columnList = "article_id, publishDate, id"))
 @SqlResultSetMapping(name = Comment.GET_COMMENT_BY_ID,
         classes = {
                 @ConstructorResult(targetClass = CommentDTO.class, columns = {
@@ -26,11 +30,21 @@ import java.util.List;
 @NamedNativeQuery(name = Comment.GET_COMMENT_BY_ID,
         query = "select ID, CONTENT, AUTHOR_ID, CREATED from COMMENT where id = :commentId",
         resultSetMapping = Comment.GET_COMMENT_BY_ID)
-@NamedQuery(name = Comment.DELETE_ALL_WHERE_AUTHOR_OR_MANAGER, query = "delete from Comment c where c.article.id = :articleId " +
-        "and (c.article.author.id = :userId or (select count (m) from Manager m where m.id = :userId) > 0)")
+@NamedQuery(name = Comment.DELETE_CHUNK_FOR_ARTICLE, query = "delete from Comment c where c.id in " +
+        "(select c2.id from Comment c2 where c2.article.id = :articleId order by c2.id limit :limit)")
+@NamedQuery(name = Comment.GET_PAGE_FOR_ARTICLE, query = "select new com.vidasoft.magman.comment.CommentDTO(" +
+        "c.id, c.content, c.author.id, c.publishDate) from Comment c where c.article.id = :articleId order by c.publishDate, c.id")
+@NamedQuery(name = Comment.GET_PAGE_FOR_ARTICLE_AFTER, query = "select new com.vidasoft.magman.comment.CommentDTO(" +
+        "c.id, c.content, c.author.id, c.publishDate) from Comment c where c.article.id = :articleId " +
+        "and c.publishDate >= :afterPublishDate and (c.publishDate > :afterPublishDate or c.id > :afterId) " +
+        "order by c.publishDate, c.id")
 public class Comment extends PublishedContent {
 
-    public static final String DELETE_ALL_WHERE_AUTHOR_OR_MANAGER = "Comment.deleteAllWhereAuthorOrManager";
+    public static final String GET_PAGE_FOR_ARTICLE = "Comment.getPageForArticle";
+
+    public static final String GET_PAGE_FOR_ARTICLE_AFTER = "Comment.getPageForArticleAfter";
+
+    public static final String DELETE_CHUNK_FOR_ARTICLE = "Comment.deleteChunkForArticle";
 
     public static final String GET_COMMENT_BY_ID = "getCommentById";
 
@@ -50,13 +64,27 @@ public class Comment extends PublishedContent {
         this.author = author;
     }
 
-    public static void deleteAllForArticle(long articleId, long userId) {
-        getEntityManager().createNamedQuery(DELETE_ALL_WHERE_AUTHOR_OR_MANAGER)
+    public static int deleteChunkForArticle(long articleId, int limit) {
+        return getEntityManager().createNamedQuery(DELETE_CHUNK_FOR_ARTICLE)
                 .setParameter("articleId", articleId)
-                .setParameter("userId", userId);
+                .setParameter("limit", limit)
+                .executeUpdate();
     }
 
-    public static List<Comment> findByArticleId(long articleId) {
-        return Comment.list("article.id", articleId);
+    // reads the author id from the foreign key instead of loading the users, and seeks through the
+    // (article_id, publishDate, id) index instead of skipping over the previous pages
+    public static List<CommentDTO> findPageForArticle(long articleId, LocalDateTime afterPublishDate, Long afterId, int size) {
+        TypedQuery<CommentDTO> query;
+        if (afterPublishDate != null && afterId != null) {
+            query = getEntityManager().createNamedQuery(GET_PAGE_FOR_ARTICLE_AFTER, CommentDTO.class)
+                    .setParameter("afterPublishDate", afterPublishDate)
+                    .setParameter("afterId", afterId);
+        } else {
+            query = getEntityManager().createNamedQuery(GET_PAGE_FOR_ARTICLE, CommentDTO.class);
+        }
+
+        return query.setParameter("articleId", articleId)
+                .setMaxResults(size)
+                .getResultList();
     }
 }
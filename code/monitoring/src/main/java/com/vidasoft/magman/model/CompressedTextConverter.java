@@ -0,0 +1,106 @@
+package com.vidasoft.magman.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Stores text as UTF-8 with a one byte format marker, deflating it once it is long enough for that to pay off
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final int COMPRESSION_THRESHOLD = 256;
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+
+    // primes the compressor with words most articles share, so even short bodies compress well.
+    // Stored values depend on it, so it can only be extended by adding a new format marker
+    private static final byte[] DICTIONARY = ("""
+            the of and to in is that for it as was with be by on not he this are or his from at which but have an \
+            they you were her she there been one all we their has would when who will more no if out so can what \
+            about into than them only other new some could these two may then do first any like my now over such \
+            our man me even most made after also did many before must through back years where much your way well \
+            article quarkus java""").getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        if (plain.length >= COMPRESSION_THRESHOLD) {
+            byte[] deflated = deflate(plain);
+            if (deflated.length < plain.length) {
+                return withMarker(DEFLATED, deflated);
+            }
+        }
+
+        return withMarker(PLAIN, plain);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] stored) {
+        if (stored == null) {
+            return null;
+        }
+
+        return switch (stored[0]) {
+            case PLAIN -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATED -> new String(inflate(stored), StandardCharsets.UTF_8);
+            default -> throw new IllegalStateException("Unknown stored text format " + stored[0]);
+        };
+    }
+
+    private static byte[] withMarker(byte marker, byte[] bytes) {
+        byte[] stored = new byte[bytes.length + 1];
+        stored[0] = marker;
+        System.arraycopy(bytes, 0, stored, 1, bytes.length);
+        return stored;
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(plain);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(plain.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            var out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(DICTIONARY);
+                } else if (inflated == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Stored text is truncated");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Stored text is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
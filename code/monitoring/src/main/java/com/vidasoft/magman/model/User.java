@@ -1,9 +1,12 @@
 package com.vidasoft.magman.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 
+// the whole user hierarchy shares one cache region, Hibernate doesn't allow caching only some of the subclasses
 @Entity
+@Cacheable
 @Table(name = "Users")
 public abstract class User extends AbstractEntity {
     public String userName;
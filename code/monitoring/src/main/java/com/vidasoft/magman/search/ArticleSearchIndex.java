@@ -0,0 +1,316 @@
+package com.vidasoft.magman.search;
+
+import com.vidasoft.magman.article.ArticleChangedPayload;
+import com.vidasoft.magman.model.Article;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+@ApplicationScoped
+public class ArticleSearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticleSearchIndex.class.getName());
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int TITLE_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparingLong(SearchHit::articleId);
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, IndexedArticle> articles = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // every indexing of an article takes the next doc number, so the postings of a term are ordered by doc
+    private long[] docArticleIds = new long[1024];
+    private int[] docLengths = new int[1024];
+    private final BitSet liveDocs = new BitSet();
+    private int docCount;
+    private long totalLength;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @ConfigProperty(name = "magman.search.build.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    // every chunk of articles is read in its own short transaction, so building the index of any number of
+    // articles stays within the transaction timeout
+    void buildIndex(@Observes StartupEvent startupEvent) {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = findArticlesAfter(afterId);
+            for (Object[] row : rows) {
+                index((Long) row[0], (String) row[1], (String) row[2]);
+            }
+            if (!rows.isEmpty()) {
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+        } while (rows.size() == chunkSize);
+
+        Gauge.builder("search_indexed_articles", articles, Map::size).register(registry);
+        Gauge.builder("search_indexed_terms", terms, Map::size).register(registry);
+        LOGGER.info("Indexed %d articles in %d ms".formatted(articles.size(), System.currentTimeMillis() - start));
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    List<Object[]> findArticlesAfter(long afterId) {
+        return Article.getEntityManager()
+                .createQuery("select a.id, a.title, a.content from Article a where a.id > :afterId order by a.id", Object[].class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(chunkSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultList();
+    }
+
+    void onArticleChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleChangedPayload payload) {
+        if (payload.deleted()) {
+            remove(payload.articleId());
+        } else {
+            index(payload.articleId(), payload.title(), payload.content());
+        }
+    }
+
+    public void index(long articleId, String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTokens(title, TITLE_WEIGHT, frequencies) + addTokens(content, 1, frequencies);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(articleId);
+            int doc = newDoc(articleId, length);
+            articles.put(articleId, new IndexedArticle(doc, frequencies.keySet().toArray(String[]::new)));
+            totalLength += length;
+            frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, t -> new Postings())
+                    .add(doc, frequency, length));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long articleId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(articleId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // MaxScore: once "size" hits are kept, the terms whose upper bounds add up to less than the worst of them cannot
+    // bring in a hit on their own. Only the postings of the other terms are walked, the rest are skipped to the
+    // docs found there, and a doc is dropped as soon as its upper bound falls below the worst hit
+    public List<SearchHit> search(String query, SearchCursor after, int size) {
+        var queryTerms = tokenize(query).stream().distinct().toList();
+
+        lock.readLock().lock();
+        try {
+            if (articles.isEmpty()) {
+                return List.of();
+            }
+
+            double averageLength = (double) totalLength / articles.size();
+            List<TermCursor> found = new ArrayList<>();
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings != null) {
+                    int documentFrequency = postings.documentFrequency();
+                    double idf = Math.log(1 + (articles.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    found.add(new TermCursor(postings, idf, averageLength));
+                }
+            }
+            if (found.isEmpty()) {
+                return List.of();
+            }
+
+            // the lowest upper bounds first, boundBelow[i] adds up the bounds of the terms before i
+            TermCursor[] cursors = found.stream()
+                    .sorted(Comparator.comparingDouble(cursor -> cursor.maxScore))
+                    .toArray(TermCursor[]::new);
+            double[] boundBelow = new double[cursors.length + 1];
+            for (int i = 0; i < cursors.length; i++) {
+                boundBelow[i + 1] = boundBelow[i] + cursors[i].maxScore;
+            }
+
+            TopHits best = new TopHits(Math.min(size, articles.size()));
+            double[] termScores = new double[cursors.length];
+            int essential = 0;
+            while (true) {
+                while (essential < cursors.length && best.isFull() && boundBelow[essential + 1] < best.minScore()) {
+                    essential++;
+                }
+                if (essential == cursors.length) {
+                    break;
+                }
+
+                int doc = Integer.MAX_VALUE;
+                for (int i = essential; i < cursors.length; i++) {
+                    doc = Math.min(doc, cursors[i].doc());
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+
+                // the bounds by frequency drop most docs before their lengths are read
+                double bound = 0;
+                for (int i = essential; i < cursors.length; i++) {
+                    if (cursors[i].doc() == doc) {
+                        bound += cursors[i].maxScoreHere();
+                    }
+                }
+                boolean skip = !liveDocs.get(doc) || (best.isFull() && bound + boundBelow[essential] < best.minScore());
+
+                bound = 0;
+                for (int i = essential; i < cursors.length; i++) {
+                    termScores[i] = 0;
+                    if (cursors[i].doc() == doc) {
+                        if (!skip) {
+                            termScores[i] = cursors[i].score(docLengths[doc], averageLength);
+                            bound += termScores[i];
+                        }
+                        cursors[i].position++;
+                    }
+                }
+                if (skip) {
+                    continue;
+                }
+
+                boolean complete = true;
+                for (int i = essential - 1; i >= 0; i--) {
+                    termScores[i] = 0;
+                    if (best.isFull() && bound + boundBelow[i + 1] < best.minScore()) {
+                        complete = false;
+                        break;
+                    }
+                    if (cursors[i].advance(doc) == doc) {
+                        if (best.isFull() && bound + boundBelow[i] + cursors[i].maxScoreHere() < best.minScore()) {
+                            complete = false;
+                            break;
+                        }
+                        termScores[i] = cursors[i].score(docLengths[doc], averageLength);
+                        bound += termScores[i];
+                    }
+                }
+
+                if (complete) {
+                    // added up in term order, so a doc scores the same on every page whichever terms were essential
+                    double score = 0;
+                    for (double termScore : termScores) {
+                        score += termScore;
+                    }
+                    long articleId = docArticleIds[doc];
+                    if (after == null || after.isBefore(score, articleId)) {
+                        best.offer(score, articleId);
+                    }
+                }
+            }
+            return best.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static double score(double idf, int frequency, int length, double averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    private int newDoc(long articleId, int length) {
+        if (docCount == docArticleIds.length) {
+            if (docCount - articles.size() > docCount / 2) {
+                renumberDocs();
+            } else {
+                docArticleIds = Arrays.copyOf(docArticleIds, docCount * 2);
+                docLengths = Arrays.copyOf(docLengths, docCount * 2);
+            }
+        }
+
+        int doc = docCount++;
+        docArticleIds[doc] = articleId;
+        docLengths[doc] = length;
+        liveDocs.set(doc);
+        return doc;
+    }
+
+    // every edit takes a new doc number, once most of them belong to replaced or removed articles
+    // the live ones are numbered again from 0, in the same order
+    private void renumberDocs() {
+        int[] newDocs = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (liveDocs.get(doc)) {
+                newDocs[doc] = live;
+                docArticleIds[live] = docArticleIds[doc];
+                docLengths[live] = docLengths[doc];
+                live++;
+            } else {
+                newDocs[doc] = -1;
+            }
+        }
+
+        liveDocs.clear();
+        liveDocs.set(0, live);
+        docCount = live;
+        terms.values().forEach(postings -> postings.renumber(newDocs, liveDocs, docLengths));
+        articles.replaceAll((articleId, article) -> new IndexedArticle(newDocs[article.doc()], article.terms()));
+    }
+
+    private void removeLocked(long articleId) {
+        IndexedArticle existing = articles.remove(articleId);
+        if (existing != null) {
+            totalLength -= docLengths[existing.doc()];
+            liveDocs.clear(existing.doc());
+            for (String term : existing.terms()) {
+                Postings postings = terms.get(term);
+                postings.markRemoved(liveDocs, docLengths);
+                if (postings.documentFrequency() == 0) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    private static int addTokens(String text, int weight, Map<String, Integer> frequencies) {
+        var tokens = tokenize(text);
+        tokens.forEach(token -> frequencies.merge(token, weight, Integer::sum));
+        return tokens.size() * weight;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
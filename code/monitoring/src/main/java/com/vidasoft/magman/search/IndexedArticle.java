@@ -0,0 +1,4 @@
+package com.vidasoft.magman.search;
+
+record IndexedArticle(int doc, String[] terms) {
+}
@@ -0,0 +1,86 @@
+package com.vidasoft.magman.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// the articles a term occurs in, ordered by doc number
+class Postings {
+
+    int[] docs = new int[4];
+    int[] frequencies = new int[4];
+    int size;
+    int removed;
+
+    // no article of the term scores more than its highest frequency would in its shortest article
+    int maxFrequency;
+    int minLength = Integer.MAX_VALUE;
+
+    void add(int doc, int frequency, int length) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        docs[size] = doc;
+        frequencies[size] = frequency;
+        size++;
+        maxFrequency = Math.max(maxFrequency, frequency);
+        minLength = Math.min(minLength, length);
+    }
+
+    void markRemoved(BitSet liveDocs, int[] docLengths) {
+        removed++;
+        if (removed > size / 2) {
+            renumber(null, liveDocs, docLengths);
+        }
+    }
+
+    int documentFrequency() {
+        return size - removed;
+    }
+
+    double maxScore(double idf, double averageLength) {
+        return ArticleSearchIndex.score(idf, maxFrequency, minLength, averageLength);
+    }
+
+    // the first position from "from" on whose doc is not before "doc"
+    int advance(int from, int doc) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < size && docs[high] < doc) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+
+        high = Math.min(high, size);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (docs[middle] < doc) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // drops the postings of the docs that are no longer live and gives the others their new numbers, if any
+    void renumber(int[] newDocs, BitSet liveDocs, int[] docLengths) {
+        int live = 0;
+        maxFrequency = 0;
+        minLength = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int doc = newDocs == null ? docs[i] : newDocs[docs[i]];
+            if (doc >= 0 && liveDocs.get(doc)) {
+                docs[live] = doc;
+                frequencies[live] = frequencies[i];
+                maxFrequency = Math.max(maxFrequency, frequencies[i]);
+                minLength = Math.min(minLength, docLengths[doc]);
+                live++;
+            }
+        }
+        size = live;
+        removed = 0;
+    }
+}
@@ -0,0 +1,34 @@
+package com.vidasoft.magman.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+public record SearchCursor(double score, long articleId) {
+
+    private static final String SEPARATOR = "|";
+
+    public static SearchCursor of(SearchHit hit) {
+        return new SearchCursor(hit.score(), hit.articleId());
+    }
+
+    public static Optional<SearchCursor> decode(String token) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var separatorIndex = decoded.lastIndexOf(SEPARATOR);
+            return Optional.of(new SearchCursor(Double.parseDouble(decoded.substring(0, separatorIndex)),
+                    Long.parseLong(decoded.substring(separatorIndex + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((score + SEPARATOR + articleId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean isBefore(double hitScore, long hitArticleId) {
+        return hitScore < score || (hitScore == score && hitArticleId > articleId);
+    }
+}
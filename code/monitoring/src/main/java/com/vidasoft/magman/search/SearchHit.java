@@ -0,0 +1,4 @@
+package com.vidasoft.magman.search;
+
+public record SearchHit(long articleId, double score) {
+}
@@ -0,0 +1,44 @@
+package com.vidasoft.magman.search;
+
+// walks the postings of one query term in doc order
+class TermCursor {
+
+    // frequencies from here on are bounded by the term's max score
+    private static final int BOUNDED_FREQUENCIES = 32;
+
+    final Postings postings;
+    final double idf;
+    final double maxScore;
+    int position;
+
+    // the most an article with a given frequency of the term can score, most postings are dropped on this alone
+    private final double[] maxScoreByFrequency;
+
+    TermCursor(Postings postings, double idf, double averageLength) {
+        this.postings = postings;
+        this.idf = idf;
+        this.maxScore = postings.maxScore(idf, averageLength);
+        maxScoreByFrequency = new double[Math.min(postings.maxFrequency, BOUNDED_FREQUENCIES)];
+        for (int frequency = 0; frequency < maxScoreByFrequency.length; frequency++) {
+            maxScoreByFrequency[frequency] = ArticleSearchIndex.score(idf, frequency, postings.minLength, averageLength);
+        }
+    }
+
+    int doc() {
+        return position < postings.size ? postings.docs[position] : Integer.MAX_VALUE;
+    }
+
+    int advance(int doc) {
+        position = postings.advance(position, doc);
+        return doc();
+    }
+
+    double maxScoreHere() {
+        int frequency = postings.frequencies[position];
+        return frequency < maxScoreByFrequency.length ? maxScoreByFrequency[frequency] : maxScore;
+    }
+
+    double score(int length, double averageLength) {
+        return ArticleSearchIndex.score(idf, postings.frequencies[position], length, averageLength);
+    }
+}
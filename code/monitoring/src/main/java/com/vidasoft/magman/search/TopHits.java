@@ -0,0 +1,87 @@
+package com.vidasoft.magman.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// the best hits found so far, kept in a heap with the worst of them on top
+class TopHits {
+
+    private final double[] scores;
+    private final long[] articleIds;
+    private int size;
+
+    TopHits(int capacity) {
+        scores = new double[capacity];
+        articleIds = new long[capacity];
+    }
+
+    boolean isFull() {
+        return size == scores.length;
+    }
+
+    // the score a new hit has to reach, once the heap is full
+    double minScore() {
+        return scores[0];
+    }
+
+    void offer(double score, long articleId) {
+        if (!isFull()) {
+            scores[size] = score;
+            articleIds[size] = articleId;
+            siftUp(size++);
+        } else if (isWorse(scores[0], articleIds[0], score, articleId)) {
+            scores[0] = score;
+            articleIds[0] = articleId;
+            siftDown(0);
+        }
+    }
+
+    List<SearchHit> toList() {
+        List<SearchHit> hits = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hits.add(new SearchHit(articleIds[i], scores[i]));
+        }
+        hits.sort(ArticleSearchIndex.RANKING);
+        return hits;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!isWorse(scores[i], articleIds[i], scores[parent], articleIds[parent])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                if (isWorse(scores[child], articleIds[child], scores[worst], articleIds[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        long articleId = articleIds[i];
+        articleIds[i] = articleIds[j];
+        articleIds[j] = articleId;
+    }
+
+    private static boolean isWorse(double score, long articleId, double otherScore, long otherArticleId) {
+        return score < otherScore || (score == otherScore && articleId > otherArticleId);
+    }
+}
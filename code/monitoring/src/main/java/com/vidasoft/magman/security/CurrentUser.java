@@ -0,0 +1,40 @@
+package com.vidasoft.magman.security;
+
+import com.vidasoft.magman.model.User;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.jwt.JsonWebToken;
+
+// The user the request was authenticated as. The id comes from the token, the user itself is loaded on the first
+// call to get(), so the requests that only need the id, or nothing at all, never look the user up
+@RequestScoped
+public class CurrentUser {
+
+    @Inject
+    JsonWebToken jwt;
+
+    private Long id;
+    private boolean idRead;
+
+    private User user;
+    private boolean loaded;
+
+    public Long getId() {
+        if (!idRead) {
+            String upn = jwt.getClaim("upn"); //We get the user id from here
+            id = upn == null ? null : Long.parseLong(upn);
+            idRead = true;
+        }
+        return id;
+    }
+
+    // the user comes from the second-level cache, which Hibernate updates whenever the user is changed
+    public User get() {
+        if (!loaded) {
+            Long userId = getId();
+            user = userId == null ? null : User.findById(userId);
+            loaded = true;
+        }
+        return user;
+    }
+}
@@ -0,0 +1,76 @@
+package com.vidasoft.magman.seed;
+
+import com.vidasoft.magman.advertiser.AdvertiserDTO;
+import com.vidasoft.magman.advertiser.AdvertiserService;
+import com.vidasoft.magman.model.Advertiser;
+import com.vidasoft.magman.user.ManagerInitiationService;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.json.bind.Jsonb;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Seeds the database once at startup: the manager from the configuration and the fixture files from the classpath.
+// The rows with fixed ids in import.sql are loaded before that, by Hibernate when it creates the schema
+@ApplicationScoped
+public class DataSeeder {
+
+    @Inject
+    ManagerInitiationService managerInitiationService;
+
+    @Inject
+    AdvertiserService advertiserService;
+
+    @Inject
+    LoadTestDataGenerator loadTestDataGenerator;
+
+    @Inject
+    SeedPhases phases;
+
+    @Inject
+    Jsonb jsonb;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.advertisers", defaultValue = "seed/advertisers.json")
+    String advertisersFixture;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.enabled", defaultValue = "false")
+    boolean loadTestData;
+
+    void seed(@Observes StartupEvent startupEvent) {
+        phases.run("manager", () -> managerInitiationService.createManager() ? 1 : 0);
+        phases.run("advertisers", () -> advertiserService.createAdvertisers(readAdvertisers()));
+
+        if (loadTestData) {
+            // generating the load test data takes minutes, the application serves requests in the meantime
+            var generator = new Thread(loadTestDataGenerator::generate, "seed-load-test-data");
+            generator.setDaemon(true);
+            generator.start();
+        }
+    }
+
+    private List<Advertiser> readAdvertisers() {
+        try (InputStream fixture = Thread.currentThread().getContextClassLoader().getResourceAsStream(advertisersFixture)) {
+            if (fixture == null) {
+                throw new IllegalStateException("Fixture " + advertisersFixture + " was not found");
+            }
+
+            List<AdvertiserDTO> advertisers = jsonb.fromJson(fixture, new ArrayList<AdvertiserDTO>() {
+            }.getClass().getGenericSuperclass());
+            return advertisers.stream()
+                    .map(advertiser -> new Advertiser(advertiser.getName(), advertiser.getWebsite(),
+                            advertiser.getContactEmail(), advertiser.getSponsorPackage()))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.vidasoft.magman.seed;
+
+import com.vidasoft.magman.article.ArticleChangedPayload;
+import com.vidasoft.magman.article.ArticleCommentCountJob;
+import com.vidasoft.magman.model.Article;
+import com.vidasoft.magman.model.Author;
+import com.vidasoft.magman.model.Comment;
+import com.vidasoft.magman.security.PasswordService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Fills the database with generated authors, articles and comments for load tests. They are written in chunks, each
+// in its own transaction, with the inserts sent in JDBC batches. The same random seed gives the same data
+@ApplicationScoped
+public class LoadTestDataGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(LoadTestDataGenerator.class.getName());
+
+    private static final String[] WORDS = {"quarkus", "java", "magazine", "article", "reader", "author", "sponsor",
+            "cache", "native", "reactive", "kafka", "metric", "latency", "throughput", "fox", "dog", "quick", "lazy",
+            "brown", "monitoring", "cloud", "container", "startup", "memory", "thread", "query", "index", "page"};
+
+    // articles and comments are dated within this many minutes before now, about two years
+    private static final int DATE_SPREAD_MINUTES = 2 * 365 * 24 * 60;
+
+    @Inject
+    SeedPhases phases;
+
+    @Inject
+    PasswordService passwordService;
+
+    @Inject
+    ArticleCommentCountJob articleCommentCountJob;
+
+    @Inject
+    Event<ArticleChangedPayload> articleChangedEvent;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.authors", defaultValue = "10000")
+    int authorCount;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.articles", defaultValue = "1000000")
+    int articleCount;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.comments", defaultValue = "5000000")
+    int commentCount;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    // every generated author can log in with this password
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.password", defaultValue = "loadtest")
+    String password;
+
+    @Inject
+    @ConfigProperty(name = "magman.seed.load-test.random-seed", defaultValue = "42")
+    long randomSeed;
+
+    public void generate() {
+        try {
+            var random = new SplittableRandom(randomSeed);
+            var now = LocalDateTime.now();
+            long[] authorIds = new long[authorCount];
+            // articles need an author and comments an article
+            long[] articleIds = new long[authorCount == 0 ? 0 : articleCount];
+
+            phases.run("load-test-authors", () -> {
+                var salt = passwordService.generateSalt();
+                var encryptedPassword = passwordService.encryptPassword(password, salt);
+                return inChunks(authorCount, (from, size) -> persistAuthors(authorIds, from, size, encryptedPassword, salt));
+            });
+            phases.run("load-test-articles", () -> inChunks(articleIds.length,
+                    (from, size) -> persistArticles(articleIds, from, size, authorIds, random.split(), now)));
+            phases.run("load-test-comments", () -> inChunks(articleIds.length == 0 ? 0 : commentCount,
+                    (from, size) -> persistComments(from, size, authorIds, articleIds, random.split(), now)));
+            phases.run("load-test-comment-counts", articleCommentCountJob::reconcileAll);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not generate the load test data", e);
+        }
+    }
+
+    private int inChunks(int count, ChunkWriter writer) {
+        for (int from = 0; from < count; from += chunkSize) {
+            writer.write(from, Math.min(chunkSize, count - from));
+        }
+        return count;
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void persistAuthors(long[] authorIds, int from, int size, String encryptedPassword, String salt) {
+        var entityManager = Author.getEntityManager();
+        List<Author> authors = new ArrayList<>(size);
+        for (int i = from; i < from + size; i++) {
+            var author = new Author("load-author-" + i, encryptedPassword, "Load", "Author " + i,
+                    "load-author-" + i + "@vida-soft.com", true, 1000);
+            author.salt = salt;
+            entityManager.persist(author);
+            authors.add(author);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        for (int i = 0; i < size; i++) {
+            authorIds[from + i] = authors.get(i).id;
+        }
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void persistArticles(long[] articleIds, int from, int size, long[] authorIds, SplittableRandom random, LocalDateTime now) {
+        var entityManager = Article.getEntityManager();
+        List<Article> articles = new ArrayList<>(size);
+        for (int i = from; i < from + size; i++) {
+            var author = entityManager.getReference(Author.class, authorIds[random.nextInt(authorIds.length)]);
+            var article = new Article("Load test article " + i, text(random, 40, 200), author);
+            article.publishDate = now.minusMinutes(random.nextInt(DATE_SPREAD_MINUTES));
+            article.lastModified = article.publishDate;
+            entityManager.persist(article);
+            articles.add(article);
+        }
+
+        // sends the inserts in JDBC batches and keeps the persistence context from growing between chunks
+        entityManager.flush();
+        entityManager.clear();
+        for (int i = 0; i < size; i++) {
+            articleIds[from + i] = articles.get(i).id;
+            articleChangedEvent.fire(ArticleChangedPayload.updated(articles.get(i)));
+        }
+    }
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    void persistComments(int from, int size, long[] authorIds, long[] articleIds, SplittableRandom random, LocalDateTime now) {
+        var entityManager = Comment.getEntityManager();
+        for (int i = from; i < from + size; i++) {
+            var comment = new Comment(text(random, 3, 20), entityManager.getReference(Author.class, authorIds[random.nextInt(authorIds.length)]));
+            comment.article = entityManager.getReference(Article.class, articleIds[random.nextInt(articleIds.length)]);
+            comment.publishDate = now.minusMinutes(random.nextInt(DATE_SPREAD_MINUTES));
+            comment.lastModified = comment.publishDate;
+            entityManager.persist(comment);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String text(SplittableRandom random, int minWords, int maxWords) {
+        int words = random.nextInt(minWords, maxWords + 1);
+        var text = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.append('.').toString();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(int from, int size);
+    }
+}
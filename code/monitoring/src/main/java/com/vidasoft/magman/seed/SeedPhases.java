@@ -0,0 +1,28 @@
+package com.vidasoft.magman.seed;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.logging.Logger;
+
+@ApplicationScoped
+public class SeedPhases {
+
+    private static final Logger LOGGER = Logger.getLogger(SeedPhases.class.getName());
+
+    @Inject
+    MeterRegistry registry;
+
+    // runs one seeding phase, and reports how long it took and how many rows it added
+    public int run(String phase, IntSupplier seeding) {
+        long start = System.nanoTime();
+        int rows = seeding.getAsInt();
+        long elapsed = System.nanoTime() - start;
+        registry.timer("seed_phase", "phase", phase).record(elapsed, TimeUnit.NANOSECONDS);
+        LOGGER.info("Seeded %d rows in phase %s in %d ms".formatted(rows, phase, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+        return rows;
+    }
+}
@@ -2,8 +2,7 @@ package com.vidasoft.magman.subscription;
 
 import com.vidasoft.magman.model.CreditCard;
 import com.vidasoft.magman.model.Subscriber;
-import com.vidasoft.magman.model.User;
-import com.vidasoft.magman.security.LoggedUser;
+import com.vidasoft.magman.security.CurrentUser;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -16,8 +15,7 @@ public class SubscriptionResource implements SubscriptionAPI {
     PaymentService paymentService;
 
     @Inject
-    @LoggedUser
-    User loggedUser;
+    CurrentUser currentUser;
 
     @Override
     @Transactional
@@ -31,7 +29,7 @@ public class SubscriptionResource implements SubscriptionAPI {
 
     @Override
     public Response chargeSubscriber() {
-        if (loggedUser instanceof Subscriber subscriber) {
+        if (currentUser.get() instanceof Subscriber subscriber) {
             var result = paymentService.chargeSubscriber(subscriber);
             return result ? Response.status(Response.Status.NO_CONTENT).build() :
                     Response.status(Response.Status.NOT_ACCEPTABLE).build();
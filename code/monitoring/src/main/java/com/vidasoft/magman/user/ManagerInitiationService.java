@@ -2,11 +2,9 @@ package com.vidasoft.magman.user;
 
 import com.vidasoft.magman.model.Manager;
 import com.vidasoft.magman.security.PasswordService;
-import io.quarkus.runtime.StartupEvent;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
@@ -25,13 +23,16 @@ public class ManagerInitiationService {
     String managerPassword;
 
     @Transactional
-    public void createManager(@Observes StartupEvent startupEvent) {
-        if (Manager.count() == 0) {
-            var managerSalt = passwordService.generateSalt();
-            var manager = new Manager(managerUsername, passwordService.encryptPassword(managerPassword, managerSalt),
-                    "Manager", "User", "manager@vida-soft.com");
-            manager.salt = managerSalt;
-            manager.persist();
+    public boolean createManager() {
+        if (Manager.count() > 0) {
+            return false;
         }
+
+        var managerSalt = passwordService.generateSalt();
+        var manager = new Manager(managerUsername, passwordService.encryptPassword(managerPassword, managerSalt),
+                "Manager", "User", "manager@vida-soft.com");
+        manager.salt = managerSalt;
+        manager.persist();
+        return true;
     }
 }
@@ -0,0 +1,45 @@
+package com.vidasoft;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+
+@QuarkusTest
+public class AdvertiserLogoTest {
+
+    // one byte over magman.advertiser.logo.max-size
+    private static final int TOO_LARGE = 524_289;
+
+    private static long advertiserId() {
+        return given().get("/advertiser").then().statusCode(200).extract().jsonPath().getLong("[0].id");
+    }
+
+    @Test
+    public void logoIsRevalidatedByItsETag() {
+        long advertiserId = advertiserId();
+        given().header("Authorization", TestUsers.manager().authorization())
+                .contentType("image/png").body(new byte[]{1, 2, 3})
+                .put("/advertiser/" + advertiserId + "/logo")
+                .then().statusCode(204);
+
+        var eTag = given().get("/advertiser/" + advertiserId + "/logo")
+                .then().statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+        given().header("If-None-Match", eTag)
+                .get("/advertiser/" + advertiserId + "/logo")
+                .then().statusCode(304)
+                .header("ETag", is(eTag));
+    }
+
+    @Test
+    public void logoLargerThanAllowedIsRejected() {
+        given().header("Authorization", TestUsers.manager().authorization())
+                .contentType("image/png").body(new byte[TOO_LARGE])
+                .put("/advertiser/" + advertiserId() + "/logo")
+                .then().statusCode(413);
+    }
+}
@@ -0,0 +1,73 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.model.Article;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class ArticleDeletionTest {
+
+    private static final long PURGE_TIMEOUT_MILLIS = 30_000;
+
+    private static void comment(TestUsers.TestUser author, long articleId) {
+        given().header("Authorization", author.authorization())
+                .contentType("application/json")
+                .body("""
+                        {"content": "Commented by a test"}""")
+                .post("/article/" + articleId + "/comment")
+                .then().statusCode(201);
+    }
+
+    @Test
+    public void commentsOfADeletedArticleAreNotServed() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        comment(author, articleId);
+        given().header("Authorization", author.authorization())
+                .get("/article/" + articleId + "/comment")
+                .then().statusCode(200);
+
+        given().header("Authorization", author.authorization())
+                .delete("/article/" + articleId)
+                .then().statusCode(204);
+
+        given().header("Authorization", author.authorization())
+                .get("/article/" + articleId + "/comment")
+                .then().statusCode(404);
+    }
+
+    @Test
+    public void deletedArticleIsPurgedWithItsComments() throws InterruptedException {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        comment(author, articleId);
+        comment(author, articleId);
+
+        given().header("Authorization", author.authorization())
+                .delete("/article/" + articleId)
+                .then().statusCode(204);
+        given().header("Authorization", author.authorization())
+                .get("/article/" + articleId)
+                .then().statusCode(404);
+
+        // the purge job runs every few seconds
+        long deadline = System.currentTimeMillis() + PURGE_TIMEOUT_MILLIS;
+        while (storedRows(articleId) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+        assertEquals(0, storedRows(articleId));
+    }
+
+    // the article row and its comment rows, read with SQL so that a deleted article is counted until it is purged
+    private static long storedRows(long articleId) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) Article.getEntityManager()
+                .createNativeQuery("select (select count(*) from Article where id = :articleId) " +
+                        "+ (select count(*) from Comment where article_id = :articleId)")
+                .setParameter("articleId", articleId)
+                .getSingleResult()).longValue());
+    }
+}
@@ -0,0 +1,127 @@
+package com.vidasoft;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class ArticleETagTest {
+
+    private static String eTag(TestUsers.TestUser user, long articleId) {
+        return given().header("Authorization", user.authorization())
+                .get("/article/" + articleId)
+                .then().statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+    }
+
+    @Test
+    public void currentETagIsNotModified() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        var eTag = eTag(author, articleId);
+
+        given().header("Authorization", author.authorization())
+                .header("If-None-Match", eTag)
+                .get("/article/" + articleId)
+                .then().statusCode(304)
+                .header("ETag", is(eTag));
+        given().header("Authorization", author.authorization())
+                .header("If-None-Match", "\"other\", W/" + eTag)
+                .get("/article/" + articleId)
+                .then().statusCode(304);
+        given().header("Authorization", author.authorization())
+                .header("If-None-Match", "\"other\"")
+                .get("/article/" + articleId)
+                .then().statusCode(200)
+                .header("ETag", is(eTag));
+    }
+
+    @Test
+    public void editChangesTheETag() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        var eTag = eTag(author, articleId);
+
+        given().header("Authorization", author.authorization())
+                .contentType("application/json")
+                .body("""
+                        {"title": "Edited", "content": "Edited by a test"}""")
+                .put("/article/" + articleId)
+                .then().statusCode(200);
+
+        given().header("Authorization", author.authorization())
+                .header("If-None-Match", eTag)
+                .get("/article/" + articleId)
+                .then().statusCode(200)
+                .header("ETag", not(is(eTag)))
+                .body("content", startsWith("Edited by a test"));
+    }
+
+    @Test
+    public void ifMatchEditsOnlyTheTaggedVersion() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        var eTag = eTag(author, articleId);
+
+        var editedETag = edit(author, articleId, eTag)
+                .then().statusCode(200)
+                .header("ETag", not(is(eTag)))
+                .body("title", is("Edited"))
+                .extract().header("ETag");
+        edit(author, articleId, eTag).then().statusCode(412);
+        edit(TestUsers.newAuthor(), articleId, editedETag).then().statusCode(403);
+        edit(author, Long.MAX_VALUE, editedETag).then().statusCode(404);
+        edit(author, articleId, editedETag).then().statusCode(200);
+    }
+
+    @Test
+    public void ifMatchWithSeveralTagsIsTaggedWithTheEditedVersion() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        var staleETag = eTag(author, articleId);
+        var currentETag = edit(author, articleId, staleETag).then().statusCode(200).extract().header("ETag");
+
+        var editedETag = edit(author, articleId, staleETag + ", " + currentETag)
+                .then().statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+        assertEquals(eTag(author, articleId), editedETag);
+        edit(author, articleId, editedETag).then().statusCode(200);
+    }
+
+    @Test
+    public void conditionalAndUnconditionalEditsReturnTheSameFields() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+
+        Map<String, Object> conditional = edit(author, articleId, eTag(author, articleId))
+                .then().statusCode(200)
+                .body("publishDate", notNullValue())
+                .extract().jsonPath().getMap("");
+        Map<String, Object> unconditional = edit(author, articleId, null)
+                .then().statusCode(200)
+                .extract().jsonPath().getMap("");
+        assertEquals(unconditional.keySet(), conditional.keySet());
+    }
+
+    private static Response edit(TestUsers.TestUser author, long articleId, String ifMatch) {
+        var request = given().header("Authorization", author.authorization())
+                .contentType("application/json")
+                .body("""
+                        {"title": "Edited", "content": "Edited by a test"}""");
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        return request.put("/article/" + articleId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.vidasoft;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(ArticleExportTest.SmallChunks.class)
+public class ArticleExportTest {
+
+    public static class SmallChunks implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("magman.export.chunk-size", "2",
+                    "magman.export.fetch-size", "2");
+        }
+    }
+
+    @Test
+    public void exportNeedsManager() {
+        given().get("/article/export").then().statusCode(401);
+        given().header("Authorization", TestUsers.newAuthor().authorization())
+                .get("/article/export")
+                .then().statusCode(403);
+    }
+
+    @Test
+    public void exportListsEveryArticleOnceAcrossChunks() {
+        var body = given().header("Authorization", TestUsers.manager().authorization())
+                .get("/article/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        var ids = Arrays.stream(body.split("\n"))
+                .filter(line -> !line.isBlank())
+                .map(line -> JsonPath.from(line).getLong("id"))
+                .toList();
+        assertTrue(ids.containsAll(List.of(3L, 4L, 5L, 6L)), body);
+        assertEquals(ids.stream().distinct().count(), ids.size(), body);
+        assertEquals(ids.stream().sorted().toList(), ids, body);
+    }
+
+    @Test
+    public void commentsSpanningSeveralPagesStayWithTheirArticle() {
+        var author = TestUsers.newAuthor();
+        long first = TestArticles.create(author);
+        long second = TestArticles.create(author);
+        for (int i = 0; i < 5; i++) {
+            TestArticles.comment(author, first, "First " + i);
+        }
+        TestArticles.comment(author, second, "Second");
+
+        var body = given().header("Authorization", TestUsers.manager().authorization())
+                .get("/article/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        var articles = Arrays.stream(body.split("\n"))
+                .filter(line -> !line.isBlank())
+                .map(JsonPath::from)
+                .collect(Collectors.toMap(line -> line.getLong("id"), line -> line.getList("comments.content", String.class)));
+        assertEquals(List.of("First 0", "First 1", "First 2", "First 3", "First 4"), articles.get(first));
+        assertEquals(List.of("Second"), articles.get(second));
+    }
+}
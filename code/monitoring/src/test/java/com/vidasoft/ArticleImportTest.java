@@ -0,0 +1,43 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.article.ArticleChangedPayload;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+
+@QuarkusTest
+public class ArticleImportTest {
+
+    private static final String POISON = "Rejected by the database";
+
+    // stands in for a row the database refuses, which validation cannot catch
+    @ApplicationScoped
+    public static class PoisonedArticles {
+        void onArticleChanged(@Observes ArticleChangedPayload payload) {
+            if (POISON.equals(payload.title())) {
+                throw new IllegalStateException("Poisoned article");
+            }
+        }
+    }
+
+    @Test
+    public void anArticleTheDatabaseRejectsFailsOnlyItself() {
+        given().header("Authorization", TestUsers.newAuthor().authorization())
+                .contentType("application/json")
+                .body("""
+                        [{"title": "First", "content": "Imported by a test"},
+                         {"title": "%s", "content": "Imported by a test"},
+                         {"title": "", "content": "Imported by a test"},
+                         {"title": "Last", "content": "Imported by a test"}]""".formatted(POISON))
+                .post("/article/bulk")
+                .then().statusCode(200)
+                .body("imported", is(2))
+                .body("failures.index", is(List.of(2, 1)));
+    }
+}
@@ -0,0 +1,109 @@
+package com.vidasoft;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class ArticlePromotionTest {
+
+    private static long advertiserId() {
+        return given().get("/advertiser").then().statusCode(200).extract().jsonPath().getLong("[0].id");
+    }
+
+    @Test
+    public void promotionNeedsManager() {
+        var promotion = """
+                {"advertiserId": %d, "articleIds": [3]}""".formatted(advertiserId());
+        given().contentType("application/json").body(promotion)
+                .post("/article/promotion")
+                .then().statusCode(401);
+        given().header("Authorization", TestUsers.newAuthor().authorization())
+                .contentType("application/json").body(promotion)
+                .post("/article/promotion")
+                .then().statusCode(403);
+        given().header("Authorization", TestUsers.newAuthor().authorization())
+                .patch("/article/3/advertiser/" + advertiserId())
+                .then().statusCode(403);
+    }
+
+    @Test
+    public void promotionWithoutCriteriaIsRejected() {
+        var manager = TestUsers.manager().authorization();
+        given().header("Authorization", manager)
+                .contentType("application/json").body("""
+                        {"advertiserId": %d}""".formatted(advertiserId()))
+                .post("/article/promotion")
+                .then().statusCode(400);
+        given().header("Authorization", manager)
+                .contentType("application/json").body("""
+                        {"advertiserId": %d, "articleIds": []}""".formatted(advertiserId()))
+                .post("/article/promotion")
+                .then().statusCode(400);
+    }
+
+    @Test
+    public void promotionAddsTheAdvertiserOnce() {
+        var manager = TestUsers.manager().authorization();
+        var promotion = """
+                {"advertiserId": %d, "articleIds": [5, 6]}""".formatted(advertiserId());
+        given().header("Authorization", manager)
+                .contentType("application/json").body(promotion)
+                .post("/article/promotion")
+                .then().statusCode(200);
+        given().header("Authorization", manager)
+                .contentType("application/json").body(promotion)
+                .post("/article/promotion")
+                .then().statusCode(200)
+                .body("promoted", is(0));
+    }
+
+    @Test
+    public void concurrentPromotionsAddEveryArticleOnce() {
+        var author = TestUsers.newAuthor();
+        List<Long> articleIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            articleIds.add(TestArticles.create(author));
+        }
+        var manager = TestUsers.manager().authorization();
+        var promotion = """
+                {"advertiserId": %d, "articleIds": [%s]}""".formatted(advertiserId(),
+                articleIds.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+
+        int promoters = 8;
+        var barrier = new CyclicBarrier(promoters);
+        ExecutorService executor = Executors.newFixedThreadPool(promoters);
+        List<CompletableFuture<Integer>> promoted = new ArrayList<>();
+        for (int i = 0; i < promoters; i++) {
+            promoted.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return given().header("Authorization", manager)
+                        .contentType("application/json").body(promotion)
+                        .post("/article/promotion")
+                        .then().statusCode(200)
+                        .extract().jsonPath().getInt("promoted");
+            }, executor));
+        }
+
+        try {
+            assertEquals(articleIds.size(), promoted.stream().mapToInt(CompletableFuture::join).sum());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
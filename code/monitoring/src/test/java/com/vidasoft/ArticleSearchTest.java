@@ -0,0 +1,71 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.search.ArticleSearchIndex;
+import com.vidasoft.magman.search.SearchCursor;
+import com.vidasoft.magman.search.SearchHit;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class ArticleSearchTest {
+
+    @Test
+    public void searchNeedsLogin() {
+        given().queryParam("q", "java").get("/article/search").then().statusCode(401);
+        given().header("Authorization", TestUsers.newSubscriber().authorization())
+                .queryParam("q", "java")
+                .get("/article/search")
+                .then().statusCode(200);
+    }
+
+    @Test
+    public void pagesOfTheBestHitsMatchAFullRanking() {
+        // a small vocabulary, so every query term occurs in most articles like in the load test data
+        var words = List.of("java", "quarkus", "kotlin", "native", "reactive", "panache", "cache", "index");
+        var random = new Random(42);
+        var index = new ArticleSearchIndex();
+        for (long articleId = 1; articleId <= 5_000; articleId++) {
+            index.index(articleId, randomText(random, words, 3), randomText(random, words, 5 + random.nextInt(60)));
+        }
+        // edits and deletions leave replaced docs behind and make the index number them again
+        for (long articleId = 1; articleId <= 5_000; articleId++) {
+            if (articleId % 3 == 0) {
+                index.remove(articleId);
+            } else {
+                index.index(articleId, randomText(random, words, 3), randomText(random, words, 5 + random.nextInt(60)));
+            }
+        }
+
+        for (String query : List.of("java", "java quarkus", "kotlin native reactive", "cache index panache java quarkus")) {
+            // with room for every article nothing is pruned
+            List<SearchHit> all = index.search(query, null, Integer.MAX_VALUE);
+
+            List<SearchHit> paged = new ArrayList<>();
+            SearchCursor after = null;
+            List<SearchHit> page;
+            do {
+                page = index.search(query, after, 100);
+                paged.addAll(page);
+                after = page.isEmpty() ? null : SearchCursor.of(page.get(page.size() - 1));
+            } while (page.size() == 100);
+
+            assertEquals(all, paged, query);
+            assertEquals(all.subList(0, 10), index.search(query, null, 10), query);
+        }
+    }
+
+    private static String randomText(Random random, List<String> words, int length) {
+        return IntStream.range(0, length)
+                .mapToObj(i -> words.get(random.nextInt(words.size())))
+                .collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,18 @@
+package com.vidasoft;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+
+@QuarkusTest
+public class ArticleTopTest {
+
+    @Test
+    public void topArticlesNeedLogin() {
+        given().get("/article/top").then().statusCode(401);
+        given().header("Authorization", TestUsers.newSubscriber().authorization())
+                .get("/article/top")
+                .then().statusCode(200);
+    }
+}
@@ -0,0 +1,32 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.comment.CommentService;
+import com.vidasoft.magman.model.Article;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+public class CommentStreamsTest {
+
+    @Inject
+    CommentService commentService;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    public void anonymousCommentsArePublished() {
+        long articleId = TestArticles.create(TestUsers.newAuthor());
+        double publishedBefore = registry.counter("comment_stream_published").count();
+
+        QuarkusTransaction.requiringNew().run(() -> commentService.createComment("Anonymous", null,
+                Article.getEntityManager().getReference(Article.class, articleId)));
+
+        assertEquals(publishedBefore + 1, registry.counter("comment_stream_published").count());
+    }
+}
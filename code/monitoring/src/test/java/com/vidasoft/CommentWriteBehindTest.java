@@ -0,0 +1,107 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.comment.CommentCreatedPayload;
+import com.vidasoft.magman.comment.CommentWriteBehind;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(CommentWriteBehindTest.WriteBehind.class)
+public class CommentWriteBehindTest {
+
+    private static final int COMMENTS = 20;
+
+    private static final String FATAL = "Fails with an error";
+
+    // lingers long enough for all the comments of a test to land in one batch
+    public static class WriteBehind implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("magman.comment.write-behind.enabled", "true",
+                    "magman.comment.write-behind.linger", "200ms");
+        }
+    }
+
+    // stands in for an Error, which is not an exception the writer can expect from a batch
+    @ApplicationScoped
+    public static class FatalComments {
+        void onCommentCreated(@Observes CommentCreatedPayload payload) {
+            if (FATAL.equals(payload.comment().content)) {
+                throw new AssertionError("Fatal comment");
+            }
+        }
+    }
+
+    @Inject
+    CommentWriteBehind commentWriteBehind;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    public void commentsAreWrittenInBatchesAndCounted() throws Exception {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        long batchesBefore = registry.summary("comments_write_behind_batch_size").count();
+
+        List<CompletionStage<Optional<Long>>> ids = new ArrayList<>();
+        for (int i = 0; i < COMMENTS; i++) {
+            ids.add(commentWriteBehind.submit("Comment " + i, author.id(), articleId).orElseThrow());
+        }
+        var missingArticle = commentWriteBehind.submit("Lost comment", author.id(), Long.MAX_VALUE).orElseThrow();
+
+        for (var id : ids) {
+            assertTrue(id.toCompletableFuture().get(10, TimeUnit.SECONDS).isPresent());
+        }
+        assertTrue(missingArticle.toCompletableFuture().get(10, TimeUnit.SECONDS).isEmpty());
+        assertTrue(registry.summary("comments_write_behind_batch_size").count() - batchesBefore < COMMENTS);
+        assertEquals(COMMENTS, TestArticles.commentCount(author, articleId));
+    }
+
+    @Test
+    public void aBadCommentFailsOnlyItself() throws Exception {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+
+        var before = commentWriteBehind.submit("Before", author.id(), articleId).orElseThrow();
+        // there is no such user, so the batch fails on the foreign key
+        var bad = commentWriteBehind.submit("Bad", Long.MAX_VALUE, articleId).orElseThrow();
+        var after = commentWriteBehind.submit("After", author.id(), articleId).orElseThrow();
+
+        assertTrue(before.toCompletableFuture().get(10, TimeUnit.SECONDS).isPresent());
+        assertTrue(after.toCompletableFuture().get(10, TimeUnit.SECONDS).isPresent());
+        assertThrows(ExecutionException.class, () -> bad.toCompletableFuture().get(10, TimeUnit.SECONDS));
+        assertEquals(2, TestArticles.commentCount(author, articleId));
+    }
+
+    @Test
+    public void theWriterOutlivesAnError() throws Exception {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+
+        var fatal = commentWriteBehind.submit(FATAL, author.id(), articleId).orElseThrow();
+        assertThrows(ExecutionException.class, () -> fatal.toCompletableFuture().get(10, TimeUnit.SECONDS));
+
+        var after = commentWriteBehind.submit("After", author.id(), articleId).orElseThrow();
+        assertTrue(after.toCompletableFuture().get(10, TimeUnit.SECONDS).isPresent());
+        assertEquals(1, TestArticles.commentCount(author, articleId));
+    }
+}
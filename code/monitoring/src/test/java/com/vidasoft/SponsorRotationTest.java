@@ -0,0 +1,82 @@
+package com.vidasoft;
+
+import com.vidasoft.magman.advertiser.SponsorRotation;
+import com.vidasoft.magman.model.Advertiser;
+import com.vidasoft.magman.model.SponsorPackage;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+public class SponsorRotationTest {
+
+    private static final String SPONSORED_BY = "This article has been sponsored by: ";
+
+    private static boolean advertisersAdded;
+
+    @Inject
+    SponsorRotation sponsorRotation;
+
+    // more advertisers than an article has room for, so the sponsors of a view are a choice
+    @BeforeEach
+    public void addAdvertisers() {
+        if (advertisersAdded) {
+            return;
+        }
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            new Advertiser("Test gold", "https://gold.test", "gold@vida-soft.com", SponsorPackage.GOLD).persist();
+            for (int i = 0; i < 4; i++) {
+                new Advertiser("Test bronze " + i, "https://bronze.test", "bronze@vida-soft.com", SponsorPackage.BRONZE).persist();
+            }
+        });
+        sponsorRotation.invalidate();
+        advertisersAdded = true;
+    }
+
+    @Test
+    public void sponsorsAreDrawnForEveryViewByTheirPackagePrice() {
+        Map<String, Integer> shown = new HashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            String suffix = sponsorRotation.sponsorshipSuffix(3);
+            for (String name : suffix.substring(suffix.indexOf(SPONSORED_BY) + SPONSORED_BY.length()).split(", ")) {
+                shown.merge(name, 1, Integer::sum);
+            }
+        }
+
+        assertTrue(shown.get("Test gold") > 2 * shown.get("Test bronze 0"), shown.toString());
+    }
+
+    @Test
+    public void theTagOfAnArticleStaysWhileItsSponsorsChange() {
+        var author = TestUsers.newAuthor();
+        long articleId = TestArticles.create(author);
+        var eTag = given().header("Authorization", author.authorization())
+                .get("/article/" + articleId)
+                .then().statusCode(200)
+                .extract().header("ETag");
+
+        Set<String> contents = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            contents.add(given().header("Authorization", author.authorization())
+                    .get("/article/" + articleId)
+                    .then().statusCode(200)
+                    .header("ETag", is(eTag))
+                    .extract().jsonPath().getString("content"));
+        }
+
+        assertTrue(contents.size() > 1, contents.toString());
+        assertTrue(contents.stream().allMatch(content -> content.startsWith("Written by a test\n" + SPONSORED_BY)), contents.toString());
+    }
+}
@@ -0,0 +1,40 @@
+package com.vidasoft;
+
+import static io.restassured.RestAssured.given;
+
+// articles the tests can change without stepping on the ones from import.sql
+public final class TestArticles {
+
+    private TestArticles() {
+    }
+
+    public static long create(TestUsers.TestUser author) {
+        var location = given().header("Authorization", author.authorization())
+                .contentType("application/json")
+                .body("""
+                        {"title": "Test article", "content": "Written by a test"}""")
+                .post("/article")
+                .then().statusCode(201)
+                .extract().header("Location");
+        return Long.parseLong(location.substring(location.lastIndexOf('/') + 1));
+    }
+
+    public static void comment(TestUsers.TestUser user, long articleId, String content) {
+        given().header("Authorization", user.authorization())
+                .contentType("application/json")
+                .body("""
+                        {"content": "%s"}""".formatted(content))
+                .post("/article/{id}/comment", articleId)
+                .then().statusCode(201);
+    }
+
+    public static long commentCount(TestUsers.TestUser author, long articleId) {
+        return given().header("Authorization", author.authorization())
+                .queryParam("author", author.id())
+                .queryParam("view", "summary")
+                .queryParam("size", 100)
+                .get("/article")
+                .then().statusCode(200)
+                .extract().jsonPath().getLong("find { it.id == %d }.commentCount".formatted(articleId));
+    }
+}
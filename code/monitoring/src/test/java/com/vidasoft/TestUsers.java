@@ -0,0 +1,50 @@
+package com.vidasoft;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+
+// logs in the users the tests act as. Every test class runs against the same database, so new users get unique names
+public final class TestUsers {
+
+    private static final AtomicInteger USER_NUMBER = new AtomicInteger();
+
+    private TestUsers() {
+    }
+
+    public static TestUser manager() {
+        return login("manager", "manager");
+    }
+
+    public static TestUser newAuthor() {
+        return newUser("AUTHOR");
+    }
+
+    public static TestUser newSubscriber() {
+        return newUser("SUBSCRIBER");
+    }
+
+    private static TestUser newUser(String userType) {
+        var userName = "test-" + userType.toLowerCase() + "-" + System.nanoTime() + "-" + USER_NUMBER.incrementAndGet();
+        given().contentType("application/json")
+                .body("""
+                        {"userName": "%s", "firstName": "Test", "lastName": "User", "email": "%s@vida-soft.com",
+                         "password": "Very$tr0ngPSW", "userType": "%s"}""".formatted(userName, userName, userType))
+                .post("/user")
+                .then().statusCode(201);
+        return login(userName, "Very$tr0ngPSW");
+    }
+
+    private static TestUser login(String userName, String password) {
+        var response = given().contentType("application/json")
+                .body("""
+                        {"userName": "%s", "password": "%s"}""".formatted(userName, password))
+                .post("/user/login")
+                .then().statusCode(200)
+                .extract();
+        return new TestUser(response.jsonPath().getLong("id"), "Bearer " + response.header("Authorization"));
+    }
+
+    public record TestUser(long id, String authorization) {
+    }
+}